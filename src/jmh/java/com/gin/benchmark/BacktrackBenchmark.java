@@ -0,0 +1,66 @@
+package com.gin.benchmark;
+
+import com.gin.FrozenTree;
+import com.gin.Node;
+import com.gin.SkippedNodeStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每一层都先匹配静态节点、最后逐层回溯到路径参数节点的最坏情况，见{@link RouteGenerator#backtrackRoutes(int, int)}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class BacktrackBenchmark {
+    @Param({"4", "8", "16"})
+    private int depth;
+
+    @Param({"16"})
+    private int width;
+
+    private Node root;
+    private FrozenTree frozen;
+    private String request;
+    private final SkippedNodeStack stack = new SkippedNodeStack();
+
+    @Setup
+    public void setup() {
+        root = new Node();
+        for (String route : RouteGenerator.backtrackRoutes(depth, width)) {
+            root.addRoute(route, route);
+        }
+        frozen = root.freeze();
+        request = RouteGenerator.backtrackRequest(depth);
+    }
+
+    @Benchmark
+    public Node list() {
+        return root.getValue(request, new ArrayList<>());
+    }
+
+    @Benchmark
+    public Node stack() {
+        return root.getValue(request, stack);
+    }
+
+    @Benchmark
+    public String frozen() {
+        return frozen.getValue(request);
+    }
+}
@@ -0,0 +1,76 @@
+package com.gin.benchmark;
+
+import com.gin.BatchLookup;
+import com.gin.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一次查询一批url，对比逐条lookup和BatchLookup
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class BatchBenchmark {
+    @Param({"100000"})
+    private int routeCount;
+
+    @Param({"1000000"})
+    private int batchSize;
+
+    private Node root;
+    private BatchLookup batchLookup;
+    private List<String> requests;
+
+    @Setup
+    public void setup() {
+        RouteGenerator generator = new RouteGenerator(42);
+        List<String> routes = generator.routes(routeCount);
+        root = new Node();
+        for (String route : routes) {
+            root.addRoute(route, route);
+        }
+        batchLookup = new BatchLookup(root);
+
+        List<String> hits = generator.hits(routes);
+        requests = new ArrayList<>(batchSize);
+        Random random = new Random(7);
+        while (requests.size() < batchSize) {
+            requests.add(hits.get(random.nextInt(hits.size())));
+        }
+        Collections.shuffle(requests, random);
+    }
+
+    @Benchmark
+    public String[] loop() {
+        String[] result = new String[requests.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = root.lookup(requests.get(i)).getAssetId();
+        }
+
+        return result;
+    }
+
+    @Benchmark
+    public List<String> batch() {
+        return batchLookup.getValues(requests);
+    }
+}
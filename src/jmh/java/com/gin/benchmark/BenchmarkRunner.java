@@ -0,0 +1,28 @@
+package com.gin.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 带GC profiler运行所有(或者匹配参数的)benchmark，输出每次操作分配的字节数(gc.alloc.rate.norm)，结果写入jmh-result.json
+ * <pre>{@code
+ * mvn -P benchmark package
+ * java -cp target/benchmarks.jar com.gin.benchmark.BenchmarkRunner [regex]
+ * }</pre>
+ */
+public class BenchmarkRunner {
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(args.length > 0 ? args[0] : "com.gin.benchmark.*")
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("jmh-result.json")
+                .build();
+
+        new Runner(options).run();
+    }
+}
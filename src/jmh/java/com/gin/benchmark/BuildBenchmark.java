@@ -0,0 +1,61 @@
+package com.gin.benchmark;
+
+import com.gin.Node;
+import com.gin.NodeValue;
+import com.gin.TreeBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 逐条addRoute和TreeBuilder建树的耗时
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(value = 2, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class BuildBenchmark {
+    @Param({"1000", "100000"})
+    private int routeCount;
+
+    private List<String> routes;
+    private List<NodeValue> values;
+
+    @Setup
+    public void setup() {
+        routes = new RouteGenerator(42).routes(routeCount);
+        values = new ArrayList<>(routes.size());
+        for (String route : routes) {
+            values.add(new NodeValue(route, route));
+        }
+    }
+
+    @Benchmark
+    public Node addRoute() {
+        Node root = new Node();
+        for (String route : routes) {
+            root.addRoute(route, route);
+        }
+
+        return root;
+    }
+
+    @Benchmark
+    public Node bulkBuild() {
+        return TreeBuilder.build(values);
+    }
+}
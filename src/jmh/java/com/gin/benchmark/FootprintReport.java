@@ -0,0 +1,46 @@
+package com.gin.benchmark;
+
+import com.gin.MemoryFootprint;
+import com.gin.Node;
+import com.gin.NodeValue;
+import com.gin.TreeBuilder;
+import com.gin.TreeCompactor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 输出不同建树方式和压缩之后每条url占用的内存，见{@link MemoryFootprint}
+ * Java 9以上需要加上--add-opens才能读取ArrayList的实际容量，否则按扩容规则估算
+ * <pre>{@code
+ * mvn -P benchmark package
+ * java --add-opens java.base/java.util=ALL-UNNAMED -cp target/benchmarks.jar com.gin.benchmark.FootprintReport [routeCount]
+ * }</pre>
+ */
+public class FootprintReport {
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        List<String> routes = new RouteGenerator(42).routes(count);
+
+        Node added = new Node();
+        List<NodeValue> values = new ArrayList<>(routes.size());
+        for (String route : routes) {
+            added.addRoute(route);
+            values.add(new NodeValue(route, "api." + route));
+        }
+        Node built = TreeBuilder.build(values);
+
+        System.out.printf("%d routes%n", routes.size());
+        System.out.printf("%-12s %10s %12s %12s %12s %12s %12s %14s%n",
+                "tree", "nodes", "nodes(B)", "labels(B)", "assetIds(B)", "children(B)", "index(B)", "bytes/route");
+        print("addRoute", MemoryFootprint.of(added));
+        print("TreeBuilder", MemoryFootprint.of(built));
+        print("compacted", MemoryFootprint.of(new TreeCompactor(false).compact(added)));
+    }
+
+    private static void print(String name, MemoryFootprint footprint) {
+        System.out.printf("%-12s %10d %12d %12d %12d %12d %12d %14.1f%n", name, footprint.getNodes(), footprint.getNodeBytes(),
+                footprint.getLabelBytes(), footprint.getAssetIdBytes(), footprint.getChildrenBytes(), footprint.getIndexBytes(),
+                footprint.getBytesPerRoute());
+    }
+}
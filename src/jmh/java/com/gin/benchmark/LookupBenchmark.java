@@ -0,0 +1,93 @@
+package com.gin.benchmark;
+
+import com.gin.FrozenTree;
+import com.gin.Node;
+import com.gin.SkippedNodeStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 命中和未命中时的查询吞吐，请求按固定顺序轮流使用，避免只测到同一个url
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class LookupBenchmark {
+    @Param({"1000", "100000"})
+    private int routeCount;
+
+    private Node root;
+    private FrozenTree frozen;
+    private String[] hits;
+    private String[] misses;
+    private int index;
+    private final SkippedNodeStack stack = new SkippedNodeStack();
+
+    @Setup
+    public void setup() {
+        RouteGenerator generator = new RouteGenerator(42);
+        List<String> routes = generator.routes(routeCount);
+        root = new Node();
+        for (String route : routes) {
+            root.addRoute(route, route);
+        }
+        frozen = root.freeze();
+        hits = generator.hits(routes).toArray(new String[0]);
+        misses = generator.misses(routes).toArray(new String[0]);
+    }
+
+    private String next(String[] requests) {
+        int i = index++;
+        if (index == requests.length) {
+            index = 0;
+        }
+
+        return requests[i];
+    }
+
+    @Benchmark
+    public Node hitList() {
+        return root.getValue(next(hits), new ArrayList<>());
+    }
+
+    @Benchmark
+    public Node hitStack() {
+        return root.getValue(next(hits), stack);
+    }
+
+    @Benchmark
+    public String hitFrozen() {
+        return frozen.getValue(next(hits));
+    }
+
+    @Benchmark
+    public Node missList() {
+        return root.getValue(next(misses), new ArrayList<>());
+    }
+
+    @Benchmark
+    public Node missStack() {
+        return root.getValue(next(misses), stack);
+    }
+
+    @Benchmark
+    public String missFrozen() {
+        return frozen.getValue(next(misses));
+    }
+}
@@ -0,0 +1,65 @@
+package com.gin.benchmark;
+
+import com.gin.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按随机顺序删除一半的url，包含remove之后的cut剪枝
+ * 每次测量之前重新建树，建树时间不计入结果
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(value = 2, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class RemoveBenchmark {
+    @Param({"1000", "100000"})
+    private int routeCount;
+
+    private List<String> routes;
+    private List<String> removed;
+    private Node root;
+
+    @Setup
+    public void setup() {
+        routes = new RouteGenerator(42).routes(routeCount);
+        removed = new ArrayList<>(routes);
+        Collections.shuffle(removed, new Random(7));
+        removed = removed.subList(0, routeCount / 2);
+    }
+
+    @Setup(Level.Invocation)
+    public void build() {
+        root = new Node();
+        for (String route : routes) {
+            root.addRoute(route, route);
+        }
+    }
+
+    @Benchmark
+    public Node remove() {
+        for (String route : removed) {
+            root.remove(route);
+        }
+
+        return root;
+    }
+}
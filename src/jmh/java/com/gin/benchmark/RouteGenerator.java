@@ -0,0 +1,145 @@
+package com.gin.benchmark;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * 生成类似openapi的url，使用固定的随机种子，保证每次运行生成的数据完全相同
+ * 例如 /api/v2/billing/invoices/{id}/lines/{id}/
+ * 注意不会生成连续的{id}/{id}/，见Node.insertChild
+ */
+public class RouteGenerator {
+    private static final String[] SYLLABLES = {
+            "ac", "bil", "ca", "de", "en", "fo", "gra", "ho", "in", "jo", "ka", "lo", "me", "no", "or",
+            "pa", "qu", "re", "so", "ta", "un", "vi", "wo", "xe", "ya", "zo"
+    };
+
+    private static final String[] ACTIONS = {"search/", "export/", "batch/", "count/", "status/"};
+
+    private final Random random;
+
+    public RouteGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * @param count 生成的url数量
+     * @return 不重复的url，保持生成顺序
+     */
+    public List<String> routes(int count) {
+        Set<String> routes = new LinkedHashSet<>(count * 2);
+        // 服务和资源的数量随route数量增长，避免单个节点的子节点过多或过少
+        int services = Math.max(4, (int) Math.sqrt(count) / 4);
+        int resources = Math.max(4, (int) Math.sqrt(count) / 2);
+
+        while (routes.size() < count) {
+            StringBuilder sb = new StringBuilder("/api/v").append(1 + random.nextInt(3)).append('/');
+            sb.append(word(random.nextInt(services))).append('/');
+            sb.append(word(1000 + random.nextInt(resources))).append('/');
+
+            int depth = random.nextInt(4);
+            for (int i = 0; i < depth; i++) {
+                int kind = random.nextInt(10);
+                if (kind < 5) {
+                    sb.append("{id}/");
+                    sb.append(word(2000 + random.nextInt(resources))).append('/');
+                } else if (kind < 7) {
+                    sb.append("{id}/");
+                    break;
+                } else if (kind < 9) {
+                    sb.append(word(3000 + random.nextInt(resources))).append('/');
+                } else {
+                    sb.append(ACTIONS[random.nextInt(ACTIONS.length)]);
+                    break;
+                }
+            }
+
+            routes.add(sb.toString());
+        }
+
+        return new ArrayList<>(routes);
+    }
+
+    /**
+     * 把url中的路径参数替换成具体的值，得到一定能匹配到的请求
+     *
+     * @param routes
+     * @return
+     */
+    public List<String> hits(List<String> routes) {
+        List<String> requests = new ArrayList<>(routes.size());
+        for (String route : routes) {
+            requests.add(route.replace("{id}", Integer.toString(random.nextInt(1_000_000))));
+        }
+
+        return requests;
+    }
+
+    /**
+     * 在url的随机位置插入不存在的片段，得到大概率匹配不到的请求
+     *
+     * @param routes
+     * @return
+     */
+    public List<String> misses(List<String> routes) {
+        List<String> requests = new ArrayList<>(routes.size());
+        for (String route : hits(routes)) {
+            int slash = route.indexOf('/', 1 + random.nextInt(route.length() - 1));
+            requests.add(route.substring(0, slash + 1) + "zz" + random.nextInt(1000) + "/" + route.substring(slash + 1) + "missing/");
+        }
+
+        return requests;
+    }
+
+    /**
+     * 需要大量回溯的url，例如depth = 2时：
+     * /s/p/s/p/x0/ ... /s/p/s/p/x{width}/、/s/p/x0/ ...、/{id}/p/{id}/p/end/
+     * 请求/s/p/s/p/end/会先走完所有的静态节点，再逐层回溯到路径参数节点
+     *
+     * @param depth 路径参数的层数
+     * @param width 每一层静态节点下的兄弟节点数量
+     * @return
+     */
+    public static List<String> backtrackRoutes(int depth, int width) {
+        List<String> routes = new ArrayList<>();
+        for (int level = 1; level <= depth; level++) {
+            StringBuilder prefix = new StringBuilder("/");
+            for (int i = 0; i < level; i++) {
+                prefix.append("s/p/");
+            }
+            for (int i = 0; i < width; i++) {
+                routes.add(prefix + "x" + i + "/");
+            }
+        }
+
+        StringBuilder wildcard = new StringBuilder("/");
+        for (int i = 0; i < depth; i++) {
+            wildcard.append("{id}/p/");
+        }
+        routes.add(wildcard.append("end/").toString());
+
+        return routes;
+    }
+
+    public static String backtrackRequest(int depth) {
+        StringBuilder sb = new StringBuilder("/");
+        for (int i = 0; i < depth; i++) {
+            sb.append("s/p/");
+        }
+
+        return sb.append("end/").toString();
+    }
+
+    private static String word(int i) {
+        StringBuilder sb = new StringBuilder();
+        do {
+            sb.append(SYLLABLES[i % SYLLABLES.length]);
+            i /= SYLLABLES.length;
+        } while (i > 0);
+
+        return sb.toString();
+    }
+}
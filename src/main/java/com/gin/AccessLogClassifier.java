@@ -0,0 +1,268 @@
+package com.gin;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 离线统计访问日志中每个资产的请求数量
+ * 1. 文件按chunkSize切分，每一块的结尾移动到下一个换行符之后，保证每一行只属于一块
+ * 2. 每一块单独用FileChannel映射，交给ForkJoinPool并行处理，不会把整个文件读进内存，文件可以比内存大
+ * 3. 每一行取第一个'"'之后(没有'"'时从行首开始)的两个字段作为方法和路径，例如
+ * {@code 127.0.0.1 - - [10/Oct/2000:13:55:36 -0700] "GET /api/users/1 HTTP/1.1" 200 2326}，
+ * 路径去掉?和#之后的部分，和资产的url一样补上结尾的/
+ * 4. 方法和路径只拷贝到每个任务复用的byte[]中，通过{@link MethodTrees#get(byte[], int, int)}和{@link Node#lookup(byte[], int, int)}匹配，不会创建String
+ */
+public class AccessLogClassifier {
+    private static final long DEFAULT_CHUNK_SIZE = 32 << 20;
+    private static final int PROBE_SIZE = 8192;
+
+    private final MethodTrees trees;
+    private final ForkJoinPool pool;
+    private final long chunkSize;
+
+    public AccessLogClassifier(MethodTrees trees) {
+        this(trees, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param trees
+     * @param pool
+     * @param chunkSize 每一块的字节数，加上最后一行不能超过Integer.MAX_VALUE
+     */
+    public AccessLogClassifier(MethodTrees trees, ForkJoinPool pool, long chunkSize) {
+        if (chunkSize <= 0 || chunkSize > Integer.MAX_VALUE / 2) {
+            throw new IllegalArgumentException("chunkSize out of range: " + chunkSize);
+        }
+        this.trees = trees;
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    public AccessLogStats classify(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] bounds = split(channel);
+            if (bounds.length < 2) {
+                return new AccessLogStats();
+            }
+
+            try {
+                return pool.invoke(new ClassifyTask(channel, bounds, 0, bounds.length - 1));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * @return 每一块的边界，第i块是[bounds[i], bounds[i + 1])
+     */
+    private long[] split(FileChannel channel) throws IOException {
+        long size = channel.size();
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer probe = ByteBuffer.allocate(PROBE_SIZE);
+        long start = 0;
+        while (start < size) {
+            long end = start + chunkSize;
+            end = end >= size ? size : nextLine(channel, end, size, probe);
+            if (end - start > Integer.MAX_VALUE) {
+                throw new IOException(String.format("line at offset %d is too long", start));
+            }
+            bounds.add(end);
+            start = end;
+        }
+
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * @return position之后第一个换行符的下一个位置，没有换行符时返回size
+     */
+    private static long nextLine(FileChannel channel, long position, long size, ByteBuffer probe) throws IOException {
+        while (position < size) {
+            // 通过Buffer调用，Java 8没有返回ByteBuffer的clear()和position(int)
+            ((Buffer) probe).clear();
+            int read = channel.read(probe, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+
+        return size;
+    }
+
+    private class ClassifyTask extends RecursiveTask<AccessLogStats> {
+        private final FileChannel channel;
+        private final long[] bounds;
+        private final int from;
+        private final int to;
+
+        private ClassifyTask(FileChannel channel, long[] bounds, int from, int to) {
+            this.channel = channel;
+            this.bounds = bounds;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected AccessLogStats compute() {
+            if (to - from == 1) {
+                try {
+                    MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, bounds[from], bounds[to] - bounds[from]);
+                    return new ChunkClassifier(chunk).classify();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            int mid = (from + to) >>> 1;
+            ClassifyTask right = new ClassifyTask(channel, bounds, mid, to);
+            right.fork();
+            AccessLogStats stats = new ClassifyTask(channel, bounds, from, mid).compute();
+            stats.merge(right.join());
+            return stats;
+        }
+    }
+
+    /**
+     * 单线程处理一块日志
+     */
+    private class ChunkClassifier {
+        private final ByteBuffer chunk;
+        private final ByteBuffer view;
+        private byte[] method = new byte[16];
+        private byte[] path = new byte[256];
+        /**
+         * 资产id都来自树中的同一个String实例，按引用计数，最后再合并
+         */
+        private final Map<String, long[]> counts = new IdentityHashMap<>();
+        private final AccessLogStats stats = new AccessLogStats();
+
+        private ChunkClassifier(ByteBuffer chunk) {
+            this.chunk = chunk;
+            this.view = chunk.duplicate();
+        }
+
+        private AccessLogStats classify() {
+            int length = chunk.limit();
+            int lineStart = 0;
+            for (int i = 0; i < length; i++) {
+                if (chunk.get(i) == '\n') {
+                    line(lineStart, i);
+                    lineStart = i + 1;
+                }
+            }
+            if (lineStart < length) {
+                line(lineStart, length);
+            }
+
+            for (Map.Entry<String, long[]> entry : counts.entrySet()) {
+                stats.getCounts().merge(entry.getKey(), entry.getValue()[0], Long::sum);
+            }
+            return stats;
+        }
+
+        private void line(int from, int to) {
+            if (to > from && chunk.get(to - 1) == '\r') {
+                to--;
+            }
+            if (to == from) {
+                return;
+            }
+            stats.setLines(stats.getLines() + 1);
+
+            int i = from;
+            while (i < to && chunk.get(i) != '"') {
+                i++;
+            }
+            i = i < to ? i + 1 : from;
+
+            i = skipSpaces(i, to);
+            int methodFrom = i;
+            while (i < to && chunk.get(i) != ' ') {
+                i++;
+            }
+            int methodTo = i;
+
+            i = skipSpaces(i, to);
+            int pathFrom = i;
+            while (i < to) {
+                byte b = chunk.get(i);
+                if (b == ' ' || b == '"' || b == '?' || b == '#') {
+                    break;
+                }
+                i++;
+            }
+            int pathTo = i;
+
+            if (methodTo == methodFrom || pathTo == pathFrom || chunk.get(pathFrom) != '/') {
+                stats.setMalformed(stats.getMalformed() + 1);
+                return;
+            }
+
+            int methodLength = methodTo - methodFrom;
+            if (methodLength > method.length) {
+                method = new byte[methodLength];
+            }
+            copy(methodFrom, method, methodLength);
+            Node root = trees.get(method, 0, methodLength);
+            if (root == null) {
+                stats.setUnmatched(stats.getUnmatched() + 1);
+                return;
+            }
+
+            int pathLength = pathTo - pathFrom;
+            if (pathLength + 1 > path.length) {
+                path = Arrays.copyOf(path, Math.max(pathLength + 1, path.length << 1));
+            }
+            copy(pathFrom, path, pathLength);
+            if (path[pathLength - 1] != '/') {
+                path[pathLength++] = '/';
+            }
+
+            Node n = root.lookup(path, 0, pathLength);
+            String assetId = n == null ? null : n.getAssetId();
+            if (assetId == null) {
+                stats.setUnmatched(stats.getUnmatched() + 1);
+                return;
+            }
+            counts.computeIfAbsent(assetId, k -> new long[1])[0]++;
+        }
+
+        private int skipSpaces(int i, int to) {
+            while (i < to && chunk.get(i) == ' ') {
+                i++;
+            }
+            return i;
+        }
+
+        private void copy(int from, byte[] dst, int length) {
+            ((Buffer) view).clear();
+            ((Buffer) view).position(from);
+            view.get(dst, 0, length);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.gin;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link AccessLogClassifier}的统计结果
+ */
+@Data
+@NoArgsConstructor
+public class AccessLogStats {
+    /**
+     * 非空行的数量
+     */
+    private long lines;
+    /**
+     * 没有匹配到资产的请求，包括没有对应方法的树
+     */
+    private long unmatched;
+    /**
+     * 找不到方法和以/开头的路径的行
+     */
+    private long malformed;
+    /**
+     * 资产id -> 请求数量
+     */
+    private Map<String, Long> counts = new HashMap<>();
+
+    public long getMatched() {
+        return lines - unmatched - malformed;
+    }
+
+    void merge(AccessLogStats other) {
+        lines += other.lines;
+        unmatched += other.unmatched;
+        malformed += other.malformed;
+        other.counts.forEach((assetId, count) -> counts.merge(assetId, count, Long::sum));
+    }
+}
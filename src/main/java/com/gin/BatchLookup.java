@@ -0,0 +1,302 @@
+package com.gin;
+
+import com.gin.util.TreeUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 批量查询，结果与逐条调用{@link Node#getValue(String, SkippedNodeStack)}一致
+ * 1. 先对url去重并排序，排序后相邻的url大多有相同的前缀(例如/api/v1/)
+ * 2. 查询时记录每一步开始前的状态，以及到这一步为止读到过的url最大下标；
+ * 下一个url只要与上一个url的公共前缀覆盖了这些下标，就可以直接从这一步继续，不需要从根节点重新匹配
+ * 3. 排序后的url按区间拆分，交给ForkJoinPool并行处理
+ * 查询期间树不能被修改，可以传入{@link ConcurrentRouter#snapshot()}
+ */
+public class BatchLookup {
+    /**
+     * 每个任务至少处理的url数量，太小会降低前缀复用的比例
+     */
+    private static final int THRESHOLD = 1024;
+
+    private final Node root;
+    private final ForkJoinPool pool;
+
+    public BatchLookup(Node root) {
+        this(root, ForkJoinPool.commonPool());
+    }
+
+    public BatchLookup(Node root, ForkJoinPool pool) {
+        this.root = root;
+        this.pool = pool;
+    }
+
+    public List<String> getValues(Stream<String> paths) {
+        return getValues(paths.collect(Collectors.toList()));
+    }
+
+    /**
+     * @param paths
+     * @return 与paths顺序一致的资产id，匹配不到的位置与getValue一样
+     */
+    public List<String> getValues(Collection<String> paths) {
+        // 相同的url只查询一次，日志中的url大量重复
+        Map<String, Integer> index = new HashMap<>();
+        for (String path : paths) {
+            index.putIfAbsent(path, 0);
+        }
+        String[] unique = index.keySet().toArray(new String[0]);
+        Arrays.parallelSort(unique);
+        for (int i = 0; i < unique.length; i++) {
+            index.put(unique[i], i);
+        }
+
+        Node[] values = new Node[unique.length];
+        boolean[] matched = new boolean[unique.length];
+        pool.invoke(new LookupTask(unique, values, matched, 0, unique.length));
+
+        List<String> result = new ArrayList<>(paths.size());
+        for (String path : paths) {
+            // 每个url都要计入命中次数，包括重复的url，没有匹配到资产时停留的节点不计数
+            int i = index.get(path);
+            result.add((matched[i] ? Node.hit(values[i]) : values[i]).getAssetId());
+        }
+
+        return result;
+    }
+
+    private class LookupTask extends RecursiveAction {
+        private final String[] paths;
+        private final Node[] values;
+        private final boolean[] matched;
+        private final int from;
+        private final int to;
+
+        private LookupTask(String[] paths, Node[] values, boolean[] matched, int from, int to) {
+            this.paths = paths;
+            this.values = values;
+            this.matched = matched;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= THRESHOLD) {
+                Walker walker = new Walker(root);
+                for (int i = from; i < to; i++) {
+                    values[i] = walker.getValue(paths[i]);
+                    matched[i] = walker.matched;
+                }
+                return;
+            }
+
+            int mid = (from + to) >>> 1;
+            invokeAll(new LookupTask(paths, values, matched, from, mid), new LookupTask(paths, values, matched, mid, to));
+        }
+    }
+
+    /**
+     * 回溯栈，不可变的链表，恢复到之前某一步时直接使用当时的栈顶
+     */
+    private static final class Skipped {
+        private final Node node;
+        private final int offset;
+        private final Skipped next;
+
+        private Skipped(Node node, int offset, Skipped next) {
+            this.node = node;
+            this.offset = offset;
+            this.next = next;
+        }
+    }
+
+    /**
+     * 单线程使用，匹配逻辑与{@link Node#getValue(String, SkippedNodeStack)}相同，多了记录每一步的状态
+     */
+    static class Walker {
+        private final Node root;
+
+        private String prev;
+        private Node prevResult;
+        /**
+         * 最近一次查询是否匹配到了资产，见{@link Node#hit(Node)}
+         */
+        private boolean matched;
+
+        // 第k步开始前的状态
+        private int steps;
+        private Node[] nodes = new Node[16];
+        private int[] offsets = new int[16];
+        private boolean[] wildOnlys = new boolean[16];
+        private Skipped[] stacks = new Skipped[16];
+        /**
+         * 第k步之前所有判断读过的url最大下标，下标等于url长度代表读到了url的结尾
+         */
+        private int[] highs = new int[16];
+
+        Walker(Node root) {
+            this.root = root;
+        }
+
+        Node getValue(String path) {
+            int common = prev == null ? 0 : TreeUtil.longestCommonPrefix(prev, path);
+            if (prev != null && common == prev.length() && common == path.length()) {
+                return prevResult;
+            }
+
+            // 找到最后一个只依赖公共前缀的步骤
+            int k = steps - 1;
+            while (k > 0 && highs[k] >= common) {
+                k--;
+            }
+
+            Node n = root;
+            int offset = 0;
+            boolean wildOnly = false;
+            Skipped skipped = null;
+            int high = -1;
+            if (k > 0) {
+                n = nodes[k];
+                offset = offsets[k];
+                wildOnly = wildOnlys[k];
+                skipped = stacks[k];
+                high = highs[k];
+            }
+            steps = Math.max(k, 0);
+
+            prev = path;
+            prevResult = walk(path, n, offset, wildOnly, skipped, high);
+            return prevResult;
+        }
+
+        private void record(Node n, int offset, boolean wildOnly, Skipped skipped, int high) {
+            if (steps == nodes.length) {
+                int size = steps << 1;
+                nodes = Arrays.copyOf(nodes, size);
+                offsets = Arrays.copyOf(offsets, size);
+                wildOnlys = Arrays.copyOf(wildOnlys, size);
+                stacks = Arrays.copyOf(stacks, size);
+                highs = Arrays.copyOf(highs, size);
+            }
+
+            nodes[steps] = n;
+            offsets[steps] = offset;
+            wildOnlys[steps] = wildOnly;
+            stacks[steps] = skipped;
+            highs[steps] = high;
+            steps++;
+        }
+
+        private Node walk(String path, Node n, int offset, boolean wildOnly, Skipped skipped, int high) {
+            int length = path.length();
+
+            walk:
+            while (true) {
+                record(n, offset, wildOnly, skipped, high);
+
+                int start = offset;
+                String nPath = n.getPath();
+
+                // 两个长度判断都相当于读到了offset + nPath.length()的位置
+                high = Math.max(high, offset + nPath.length());
+                if (length - offset == nPath.length() && path.startsWith(nPath, offset)) {
+                    if (n.getAssetId() == null) {
+                        while (skipped != null && skipped.offset > offset) {
+                            skipped = skipped.next;
+                        }
+                        if (skipped != null) {
+                            n = skipped.node;
+                            offset = skipped.offset;
+                            skipped = skipped.next;
+                            wildOnly = true;
+                            continue walk;
+                        }
+                    }
+
+                    matched = n.getAssetId() != null;
+                    return n;
+                } else if (n.getNType() == NodeType.PARAM) {
+                    int end = path.indexOf('/', offset);
+                    high = Math.max(high, end < 0 ? length : end);
+                    if (end >= 0) {
+                        offset = end + 1;
+                    }
+                } else if (length - offset > nPath.length() && path.startsWith(nPath, offset)) {
+                    offset += nPath.length();
+                } else {
+                    while (skipped != null && skipped.offset > offset) {
+                        skipped = skipped.next;
+                    }
+                    if (skipped != null) {
+                        n = skipped.node;
+                        offset = skipped.offset;
+                        skipped = skipped.next;
+                        wildOnly = true;
+                        continue walk;
+                    }
+
+                    matched = false;
+                    return n;
+                }
+
+                high = Math.max(high, offset);
+                boolean wild = n.acceptsWild(path, offset);
+                if (n.isWildChild() && n.getChildren().get(n.getChildren().size() - 1).getMatcher() != null) {
+                    // 检查类型限制读到了这一段url结尾的'/'
+                    int end = path.indexOf('/', offset);
+                    high = Math.max(high, end < 0 ? length : end);
+                }
+                char idxc = path.charAt(offset);
+                if (!wildOnly) {
+                    Node child = n.staticChild(idxc);
+                    if (child != null) {
+                        if (wild) {
+                            skipped = new Skipped(n, start, skipped);
+                        }
+
+                        n = child;
+                        continue walk;
+                    }
+                }
+                wildOnly = false;
+
+                if (!wild) {
+                    while (skipped != null && skipped.offset > offset) {
+                        skipped = skipped.next;
+                    }
+                    if (skipped != null) {
+                        n = skipped.node;
+                        offset = skipped.offset;
+                        skipped = skipped.next;
+                        wildOnly = true;
+                        continue walk;
+                    }
+
+                    matched = false;
+                    return n;
+                }
+
+                n = n.getChildren().get(n.getChildren().size() - 1);
+                int end = path.indexOf('/', offset);
+                // 读到了'/'以及它后面的位置
+                high = Math.max(high, end < 0 ? length : end + 1);
+                int rest = end < 0 ? 0 : end - offset + 1;
+                if (rest < length - offset) {
+                    continue walk;
+                }
+
+                matched = n.getAssetId() != null;
+                return n;
+            }
+        }
+    }
+}
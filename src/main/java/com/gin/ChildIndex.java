@@ -0,0 +1,155 @@
+package com.gin;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 静态子节点的首字母索引，记录的是子节点在children中的下标
+ * 1. 子节点较少时只有按首字母排序的chars，直接顺序比较
+ * 2. 子节点较多时另外生成128位的ASCII表，非ASCII首字母用二分查找
+ * 索引创建后不再修改，children增删或者子节点首字母变化时由{@link Node}重新生成，
+ * 因此可以被{@link Node#copyPath(String)}复制出来的节点共享，并发查询时也不会读到一半的索引
+ * 没有ASCII表时chars也可以按命中次数排序，见{@link ChildOrdering}，此时查找不能提前结束
+ */
+final class ChildIndex {
+    static final ChildIndex EMPTY = new ChildIndex(new char[0], new int[0], null, true);
+
+    /**
+     * 静态子节点数量超过这个值时才使用ASCII表
+     */
+    private static final int TABLE_THRESHOLD = 8;
+
+    final char[] chars;
+    final int[] positions;
+    final int[] table;
+    /**
+     * chars是否按首字母排序
+     */
+    final boolean sorted;
+
+    private ChildIndex(char[] chars, int[] positions, int[] table, boolean sorted) {
+        this.chars = chars;
+        this.positions = positions;
+        this.table = table;
+        this.sorted = sorted;
+    }
+
+    static ChildIndex of(List<Node> children) {
+        // 高32位是首字母，低32位是下标，排序后首字母相同时和原来的顺序扫描一样取第一个子节点
+        long[] keys = new long[children.size()];
+        int size = 0;
+        for (int i = 0; i < children.size(); i++) {
+            Node child = children.get(i);
+            if (child.getNType() != NodeType.PARAM && !child.getPath().isEmpty()) {
+                keys[size++] = ((long) child.getPath().charAt(0) << 32) | i;
+            }
+        }
+        if (size == 0) {
+            return EMPTY;
+        }
+        Arrays.sort(keys, 0, size);
+
+        char[] chars = new char[size];
+        int[] positions = new int[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            char c = (char) (keys[i] >>> 32);
+            if (count > 0 && chars[count - 1] == c) {
+                continue;
+            }
+            chars[count] = c;
+            positions[count] = (int) keys[i];
+            count++;
+        }
+        if (count < size) {
+            chars = Arrays.copyOf(chars, count);
+            positions = Arrays.copyOf(positions, count);
+        }
+
+        int[] table = null;
+        if (count > TABLE_THRESHOLD) {
+            table = new int[128];
+            Arrays.fill(table, -1);
+            for (int i = 0; i < count && chars[i] < 128; i++) {
+                table[chars[i]] = positions[i];
+            }
+        }
+
+        return new ChildIndex(chars, positions, table, true);
+    }
+
+    /**
+     * 按子节点的权重从大到小重新排列chars，权重相同时按首字母
+     *
+     * @param weights 下标与children一致
+     * @return 使用ASCII表、少于两个静态子节点或者权重都为0时返回当前索引
+     */
+    ChildIndex reorder(long[] weights) {
+        if (table != null || chars.length < 2) {
+            return this;
+        }
+
+        long total = 0;
+        Integer[] order = new Integer[chars.length];
+        for (int i = 0; i < chars.length; i++) {
+            order[i] = i;
+            total += weights[positions[i]];
+        }
+        if (total == 0) {
+            return this;
+        }
+        Arrays.sort(order, (a, b) -> {
+            int c = Long.compare(weights[positions[b]], weights[positions[a]]);
+            return c != 0 ? c : Character.compare(chars[a], chars[b]);
+        });
+
+        char[] reordered = new char[chars.length];
+        int[] reorderedPositions = new int[chars.length];
+        boolean sorted = true;
+        for (int i = 0; i < order.length; i++) {
+            reordered[i] = chars[order[i]];
+            reorderedPositions[i] = positions[order[i]];
+            sorted &= i == 0 || reordered[i - 1] < reordered[i];
+        }
+
+        return new ChildIndex(reordered, reorderedPositions, null, sorted);
+    }
+
+    /**
+     * @param c
+     * @return 首字母为c的静态子节点在children中的下标，没有则返回-1
+     */
+    int find(char c) {
+        if (table != null) {
+            if (c < 128) {
+                return table[c];
+            }
+
+            int i = Arrays.binarySearch(chars, c);
+            return i >= 0 ? positions[i] : -1;
+        }
+
+        if (!sorted) {
+            for (int i = 0; i < chars.length; i++) {
+                if (chars[i] == c) {
+                    return positions[i];
+                }
+            }
+            return -1;
+        }
+
+        for (int i = 0; i < chars.length; i++) {
+            if (chars[i] == c) {
+                return positions[i];
+            }
+            if (chars[i] > c) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    int size() {
+        return chars.length;
+    }
+}
@@ -0,0 +1,76 @@
+package com.gin;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按流量调整静态子节点的查找顺序
+ * 静态子节点不超过8个时首字母索引是顺序比较的，默认按首字母排序；这里按子树中资产的命中次数({@link HitCounters})从多到少重新生成索引，
+ * 少数子节点承担大部分流量时，每一层平均比较的次数更少
+ * 1. 只替换节点的{@link ChildIndex}，不修改children，路径参数子节点仍然在最后，查找结果不变
+ * 2. 索引是不可变对象，替换只是一次引用赋值，并发查询看到的是旧索引或者新索引，都是正确的
+ * 3. 使用ASCII表的节点和顺序无关，不调整
+ * 4. children增删时索引按首字母重新生成，下一次调整时恢复
+ * 需要先通过{@link HitCounters#enable(Node)}开启命中计数，次数是开启以来(或者上一次{@link HitCounters#reset(Node)}以来)的累计值
+ */
+public class ChildOrdering {
+    private ChildOrdering() {
+    }
+
+    /**
+     * 不能和addRoute、remove同时调用，{@link ConcurrentRouter#reorderChildren()}已经加锁
+     *
+     * @param root
+     * @return 调整了顺序的节点数量
+     */
+    public static int reorder(Node root) {
+        // 先序遍历，倒过来就是先处理子节点
+        List<Node> nodes = new ArrayList<>();
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Node n = stack.pop();
+            nodes.add(n);
+            n.getChildren().forEach(stack::push);
+        }
+
+        Map<Node, Long> weights = new IdentityHashMap<>();
+        int reordered = 0;
+        for (int i = nodes.size() - 1; i >= 0; i--) {
+            Node n = nodes.get(i);
+            long weight = n.getAssetId() != null && n.hits != null ? n.hits.sum() : 0;
+            long[] childWeights = new long[n.getChildren().size()];
+            for (int j = 0; j < childWeights.length; j++) {
+                childWeights[j] = weights.get(n.getChildren().get(j));
+                weight += childWeights[j];
+            }
+            weights.put(n, weight);
+
+            if (n.reorder(childWeights)) {
+                reordered++;
+            }
+        }
+
+        return reordered;
+    }
+
+    /**
+     * 定期调整router当前的树，查询线程不参与
+     *
+     * @param router
+     * @param executor
+     * @param period
+     * @param unit
+     * @return 取消调整使用
+     */
+    public static ScheduledFuture<?> schedule(ConcurrentRouter router, ScheduledExecutorService executor, long period, TimeUnit unit) {
+        return executor.scheduleWithFixedDelay(router::reorderChildren, period, period, unit);
+    }
+}
@@ -0,0 +1,172 @@
+package com.gin;
+
+import java.util.Collection;
+
+/**
+ * 读写并发安全的路由树
+ * 查询直接读取volatile修饰的根节点，不加锁；
+ * addRoute和remove在锁内先复制会被修改的那条路径({@link Node#copyPath(String)})，在副本上修改后再整体替换根节点，
+ * 所以已经发布出去的树不会再被修改，查询拿到的永远是某个完整的版本
+ * 可以通过{@link #enableCache(int)}在树前面加一层{@link LookupCache}，每次修改都会让之前的缓存失效
+ */
+public class ConcurrentRouter {
+    private volatile Node root;
+    /**
+     * 每次发布新的根节点之后加一，用于判断缓存是否过期
+     */
+    private volatile long version;
+    private volatile LookupCache cache;
+
+    public ConcurrentRouter() {
+        this(new Node());
+    }
+
+    /**
+     * @param root 交给router之后不能再直接修改
+     */
+    public ConcurrentRouter(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * 当前版本的根节点，只能用于查询
+     *
+     * @return
+     */
+    public Node snapshot() {
+        return root;
+    }
+
+    /**
+     * 开启查询缓存
+     *
+     * @param maximumSize 最多缓存的url数量
+     */
+    public synchronized void enableCache(int maximumSize) {
+        cache = new LookupCache(maximumSize);
+    }
+
+    public synchronized void disableCache() {
+        cache = null;
+    }
+
+    /**
+     * @return 没有开启缓存时返回null
+     */
+    public LookupCache getCache() {
+        return cache;
+    }
+
+    public Node getValue(String path) {
+        LookupCache cache = this.cache;
+        if (cache == null) {
+            return root.lookup(path);
+        }
+
+        // 先读版本再读根节点，这样即使查询期间树被修改，写入缓存的也是旧版本，不会被再次命中
+        long version = this.version;
+        Node node = cache.get(path, version);
+        if (node != null) {
+            return node;
+        }
+
+        node = root.lookup(path);
+        cache.put(path, node, SkippedNodeStack.last().matched, version);
+        return node;
+    }
+
+    public Node getValue(String path, SkippedNodeStack skippedNodes) {
+        return root.getValue(path, skippedNodes);
+    }
+
+    /**
+     * 需要记录路径参数，所以不走缓存
+     *
+     * @param path
+     * @param params
+     * @return
+     */
+    public Node getValue(String path, Params params) {
+        return root.lookup(path, params);
+    }
+
+    public void addRoute(String path) {
+        addRoute(path, "api." + path);
+    }
+
+    /**
+     * 已有的路由保留原来的处理函数，见{@link Node#addRoute(String, String)}
+     */
+    public synchronized void addRoute(String path, String assetId) {
+        Node copy = root.copyPath(path);
+        copy.addRoute(path, assetId);
+        publish(copy);
+    }
+
+    public synchronized void addRoute(String path, String assetId, HandlersChain handlers) {
+        Node copy = root.copyPath(path);
+        copy.addRoute(path, assetId, handlers);
+        publish(copy);
+    }
+
+    /**
+     * 在当前发布的树上按命中次数调整静态子节点的查找顺序，不需要复制，见{@link ChildOrdering}
+     *
+     * @return 调整了顺序的节点数量
+     */
+    public synchronized int reorderChildren() {
+        return ChildOrdering.reorder(root);
+    }
+
+    public synchronized void remove(String path) {
+        Node copy = root.copyPath(path);
+        copy.remove(path);
+        publish(copy);
+    }
+
+    /**
+     * 在副本上一次性应用所有变更，只发布一次，查询只会看到变更前或变更后的树，见{@link Node#apply(RouteDiff)}
+     *
+     * @param diff
+     */
+    public synchronized void apply(RouteDiff diff) {
+        if (diff.isEmpty()) {
+            return;
+        }
+
+        Node copy = root.copyPaths(diff.paths());
+        copy.apply(diff);
+        publish(copy);
+    }
+
+    /**
+     * 和期望的完整路由集合比较，只应用差异部分
+     *
+     * @param routes
+     * @return 应用的变更
+     */
+    public synchronized RouteDiff sync(Collection<NodeValue> routes) {
+        RouteDiff diff = RouteDiff.of(root, routes);
+        apply(diff);
+        return diff;
+    }
+
+    /**
+     * 把当前的树替换成压缩后的副本，见{@link TreeCompactor}
+     *
+     * @param compactor
+     */
+    public synchronized void compact(TreeCompactor compactor) {
+        publish(compactor.compact(root));
+    }
+
+    private void publish(Node copy) {
+        root = copy;
+        version++;
+
+        LookupCache cache = this.cache;
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+}
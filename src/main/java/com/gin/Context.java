@@ -0,0 +1,110 @@
+package com.gin;
+
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 对应gin的Context，保存一次请求匹配到的路由和执行处理函数的下标
+ * 匹配用的params和回溯栈都可以复用，同一个线程处理下一个请求时直接传给{@link MethodTrees#handle(String, String, Context)}即可
+ */
+@Data
+@NoArgsConstructor
+public class Context {
+    private String method;
+    private String path;
+    /**
+     * 匹配到的资产ID
+     */
+    private String assetId;
+    private HandlersChain handlers;
+    private int index = -1;
+
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private final Params params = new Params();
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    final SkippedNodeStack skippedNodes = new SkippedNodeStack();
+
+    /**
+     * 处理函数之间传递的数据，用到时才创建
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private Map<String, Object> keys;
+
+    /**
+     * <pre>{@code
+     * func (c *Context) Next() {
+     * 	c.index++
+     * 	for c.index < int8(len(c.handlers)) {
+     * 		c.handlers[c.index](c)
+     * 		c.index++
+     * 	}
+     * }
+     * }</pre>
+     * 只能在处理函数中调用，执行当前处理函数之后的所有处理函数
+     */
+    public void next() {
+        index++;
+        HandlersFunc[] handlersFuncs = handlers.handlersFuncs;
+        while (index < handlersFuncs.length) {
+            handlersFuncs[index].handle(this);
+            index++;
+        }
+    }
+
+    /**
+     * 不再执行后面的处理函数，不影响当前的处理函数
+     */
+    public void abort() {
+        index = HandlersChain.ABORT_INDEX;
+    }
+
+    public boolean isAborted() {
+        return index >= HandlersChain.ABORT_INDEX;
+    }
+
+    /**
+     * @param name 路径参数的名字
+     * @return 和gin一样，没有这个参数时返回空字符串
+     */
+    public String param(String name) {
+        return params.get(name);
+    }
+
+    public void set(String key, Object value) {
+        if (keys == null) {
+            keys = new HashMap<>();
+        }
+        keys.put(key, value);
+    }
+
+    public Object get(String key) {
+        return keys == null ? null : keys.get(key);
+    }
+
+    /**
+     * 处理下一个请求之前清空上一个请求的状态，params和回溯栈在匹配时清空
+     */
+    void reset(String method, String path) {
+        this.method = method;
+        this.path = path;
+        this.assetId = null;
+        this.handlers = null;
+        this.index = -1;
+        this.keys = null;
+    }
+}
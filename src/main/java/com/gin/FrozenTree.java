@@ -0,0 +1,318 @@
+package com.gin;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 由{@link Node#freeze()}生成的只读路由树，生成之后与原来的树没有任何关系
+ * 节点按层序编号，所有属性都保存在平行数组中：
+ * 1. 所有节点的path拼接在labels中，节点i的path是labels[labelStart[i], labelStart[i + 1])
+ * 2. 节点i的子节点是连续的[childStart[i], childStart[i] + childCount[i])，与Node中的顺序一致，路径参数子节点在最后
+ * 3. firstChars保存每个节点path的首字母，子节点较多时额外使用128位的ASCII表直接定位静态子节点
+ * 4. fallback是匹配失败时应该回到的节点，不需要回溯栈，见{@link #find(String)}
+ * 查询逻辑与{@link Node#getValue(String, SkippedNodeStack)}完全一致
+ */
+public class FrozenTree {
+    /**
+     * 静态子节点数量超过这个值时才使用ASCII表
+     */
+    private static final int TABLE_THRESHOLD = 8;
+
+    /**
+     * 每一层节点匹配完path之后在url中的下标
+     */
+    private static final ThreadLocal<int[]> LOCAL = ThreadLocal.withInitial(() -> new int[16]);
+
+    final char[] labels;
+    final int[] labelStart;
+    final char[] firstChars;
+    final boolean[] params;
+    final int[] childStart;
+    final int[] childCount;
+    final int[] wildChild;
+    /**
+     * 节点在tables中的起始位置，-1代表没有ASCII表
+     */
+    final int[] tableStart;
+    final int[] tables;
+    final String[] assetIds;
+    /**
+     * 以下两个数组由{@link #of(Node)}根据树的结构生成，和其他数组一起保存到快照中，读取时不需要重新计算
+     * 节点的深度，根节点为0
+     */
+    final int[] depth;
+    /**
+     * 在这个节点匹配失败时要回到的祖先节点，改走它的路径参数子节点，-1代表没有
+     * 即最近的一个有路径参数子节点、并且当前节点在它的静态子节点下的祖先，也就是原来回溯栈的栈顶
+     */
+    final int[] fallback;
+    /**
+     * 路径参数节点的类型限制，根据labels生成，没有类型限制时为null
+     */
+    final ParamMatcher[] matchers;
+    final int height;
+
+    FrozenTree(char[] labels, int[] labelStart, char[] firstChars, boolean[] params, int[] childStart, int[] childCount,
+               int[] wildChild, int[] tableStart, int[] tables, String[] assetIds) {
+        this(labels, labelStart, firstChars, params, childStart, childCount, wildChild, tableStart, tables, assetIds,
+                new int[assetIds.length], new int[assetIds.length], -1);
+    }
+
+    /**
+     * @param height 小于0时根据树的结构计算depth、fallback和height，否则直接使用传入的值
+     */
+    FrozenTree(char[] labels, int[] labelStart, char[] firstChars, boolean[] params, int[] childStart, int[] childCount,
+               int[] wildChild, int[] tableStart, int[] tables, String[] assetIds, int[] depth, int[] fallback, int height) {
+        this.labels = labels;
+        this.labelStart = labelStart;
+        this.firstChars = firstChars;
+        this.params = params;
+        this.childStart = childStart;
+        this.childCount = childCount;
+        this.wildChild = wildChild;
+        this.tableStart = tableStart;
+        this.tables = tables;
+        this.assetIds = assetIds;
+        this.depth = depth;
+        this.fallback = fallback;
+
+        int size = assetIds.length;
+        this.matchers = new ParamMatcher[size];
+        for (int i = 0; i < size; i++) {
+            if (params[i]) {
+                matchers[i] = ParamMatcher.of(getPath(i));
+            }
+        }
+        if (height >= 0) {
+            this.height = height;
+            return;
+        }
+
+        // 层序编号，父节点一定在子节点之前
+        fallback[0] = -1;
+        for (int i = 0; i < size; i++) {
+            int end = childStart[i] + childCount[i];
+            for (int child = childStart[i]; child < end; child++) {
+                depth[child] = depth[i] + 1;
+                fallback[child] = wildChild[i] >= 0 && child != wildChild[i] ? i : fallback[i];
+            }
+            height = Math.max(height, depth[i]);
+        }
+        this.height = height;
+    }
+
+    public static FrozenTree of(Node root) {
+        // 层序遍历，保证同一个节点的子节点编号连续
+        List<Node> nodes = new ArrayList<>();
+        nodes.add(root);
+        int labelLength = 0;
+        for (int i = 0; i < nodes.size(); i++) {
+            nodes.addAll(nodes.get(i).getChildren());
+            labelLength += nodes.get(i).getPath().length();
+        }
+
+        int size = nodes.size();
+        char[] labels = new char[labelLength];
+        int[] labelStart = new int[size + 1];
+        char[] firstChars = new char[size];
+        boolean[] params = new boolean[size];
+        int[] childStart = new int[size];
+        int[] childCount = new int[size];
+        int[] wildChild = new int[size];
+        int[] tableStart = new int[size];
+        int tableCount = 0;
+
+        int next = 1;
+        for (int i = 0; i < size; i++) {
+            Node n = nodes.get(i);
+            String path = n.getPath();
+            path.getChars(0, path.length(), labels, labelStart[i]);
+            labelStart[i + 1] = labelStart[i] + path.length();
+            firstChars[i] = path.isEmpty() ? 0 : path.charAt(0);
+            params[i] = n.getNType() == NodeType.PARAM;
+            childStart[i] = next;
+            childCount[i] = n.getChildren().size();
+            wildChild[i] = n.isWildChild() ? next + childCount[i] - 1 : -1;
+            tableStart[i] = -1;
+            if (childCount[i] > TABLE_THRESHOLD) {
+                tableStart[i] = tableCount;
+                tableCount += 128;
+            }
+            next += childCount[i];
+        }
+
+        int[] tables = new int[tableCount];
+        Arrays.fill(tables, -1);
+        for (int i = 0; i < size; i++) {
+            if (tableStart[i] < 0) {
+                continue;
+            }
+
+            // 倒序填充，保证首字母相同时和Node一样取第一个子节点
+            for (int child = childStart[i] + childCount[i] - 1; child >= childStart[i]; child--) {
+                if (!params[child] && labelStart[child + 1] > labelStart[child] && firstChars[child] < 128) {
+                    tables[tableStart[i] + firstChars[child]] = child;
+                }
+            }
+        }
+
+        String[] assetIds = new String[size];
+        for (int i = 0; i < size; i++) {
+            assetIds[i] = nodes.get(i).getAssetId();
+        }
+
+        return new FrozenTree(labels, labelStart, firstChars, params, childStart, childCount, wildChild, tableStart, tables, assetIds);
+    }
+
+    public int size() {
+        return assetIds.length;
+    }
+
+    public String getPath(int node) {
+        return new String(labels, labelStart[node], labelStart[node + 1] - labelStart[node]);
+    }
+
+    public String getAssetId(int node) {
+        return assetIds[node];
+    }
+
+    public boolean isParam(int node) {
+        return params[node];
+    }
+
+    /**
+     * 查询url匹配到的资产，结果与{@code node.getValue(path, skippedNodes).getAssetId()}一致
+     *
+     * @param path
+     * @return
+     */
+    public String getValue(String path) {
+        return assetIds[find(path)];
+    }
+
+    /**
+     * 查询url最终停留的节点编号
+     * 原来的算法在选择静态子节点时把有路径参数子节点的节点压栈，失败时回到栈顶重新匹配该节点，再改走路径参数子节点；
+     * 栈中的节点正好是当前节点的这类祖先，而栈顶就是预先算好的fallback，
+     * 重新匹配该节点得到的下标也和第一次相同，所以只需要记录每一层的下标，失败时直接跳到fallback的路径参数子节点继续匹配
+     * 路径参数子节点不满足类型限制的祖先原来不会被压栈，这里沿着fallback跳过它们
+     *
+     * @param path
+     * @return
+     */
+    public int find(String path) {
+        int[] offsets = LOCAL.get();
+        if (offsets.length <= height) {
+            offsets = new int[height + 1];
+            LOCAL.set(offsets);
+        }
+
+        int n = 0;
+        int offset = 0;
+        int length = path.length();
+
+        walk:
+        while (true) {
+            // 接下来要进入的路径参数子节点的父节点
+            int parent;
+
+            descend:
+            {
+                fail:
+                {
+                    int labelLength = labelStart[n + 1] - labelStart[n];
+
+                    if (length - offset == labelLength && regionMatches(path, offset, n, labelLength)) {
+                        if (assetIds[n] == null) {
+                            break fail;
+                        }
+
+                        return n;
+                    } else if (params[n]) {
+                        int end = path.indexOf('/', offset);
+                        if (end >= 0) {
+                            offset = end + 1;
+                        }
+                    } else if (length - offset > labelLength && regionMatches(path, offset, n, labelLength)) {
+                        offset += labelLength;
+                    } else {
+                        break fail;
+                    }
+
+                    offsets[depth[n]] = offset;
+                    int child = staticChild(n, path.charAt(offset));
+                    if (child >= 0) {
+                        n = child;
+                        continue walk;
+                    }
+
+                    if (!acceptsWild(n, path, offset)) {
+                        break fail;
+                    }
+
+                    parent = n;
+                    break descend;
+                }
+
+                parent = fallback[n];
+                while (parent >= 0 && !acceptsWild(parent, path, offsets[depth[parent]])) {
+                    parent = fallback[parent];
+                }
+                if (parent < 0) {
+                    return n;
+                }
+                offset = offsets[depth[parent]];
+            }
+
+            n = wildChild[parent];
+            int end = path.indexOf('/', offset);
+            int rest = end < 0 ? 0 : end - offset + 1;
+            if (rest < length - offset) {
+                continue walk;
+            }
+
+            return n;
+        }
+    }
+
+    private boolean acceptsWild(int n, String path, int offset) {
+        if (wildChild[n] < 0) {
+            return false;
+        }
+
+        ParamMatcher matcher = matchers[wildChild[n]];
+        if (matcher == null) {
+            return true;
+        }
+
+        int end = path.indexOf('/', offset);
+        return matcher.matches(path, offset, end < 0 ? path.length() : end);
+    }
+
+    private int staticChild(int n, char c) {
+        if (tableStart[n] >= 0 && c < 128) {
+            return tables[tableStart[n] + c];
+        }
+
+        int end = childStart[n] + childCount[n];
+        for (int child = childStart[n]; child < end; child++) {
+            if (!params[child] && labelStart[child + 1] > labelStart[child] && firstChars[child] == c) {
+                return child;
+            }
+        }
+
+        return -1;
+    }
+
+    private boolean regionMatches(String path, int offset, int n, int labelLength) {
+        int start = labelStart[n];
+        for (int i = 0; i < labelLength; i++) {
+            if (path.charAt(offset + i) != labels[start + i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
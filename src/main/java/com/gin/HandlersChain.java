@@ -1,15 +1,81 @@
 package com.gin;
 
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 
-import java.util.ArrayList;
-import java.util.List;
-
+/**
+ * 一个路由的全部处理函数，分组的中间件在前，路由自己的处理函数在后
+ * 注册路由时合并成一个数组保存到节点上，请求时由{@link Context#next()}按下标依次执行，不再创建列表
+ * 合并总是返回新的实例，已经保存到节点上的数组不会被修改，外部只能通过{@link #size()}和{@link #get(int)}读取
+ */
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
 public class HandlersChain {
-    private List<HandlersFunc> handlersFuncs = new ArrayList<>();
+    private static final HandlersFunc[] EMPTY = new HandlersFunc[0];
+    /**
+     * 和gin的abortIndex一样，{@link Context#abort()}把下标设置成这个值，处理函数的数量必须小于它
+     */
+    static final int ABORT_INDEX = 63;
+
+    /**
+     * 只有{@link Context#next()}直接读取，不提供getter和setter，避免外部拿到或者替换这个数组
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    HandlersFunc[] handlersFuncs = EMPTY;
+
+    public static HandlersChain of(HandlersFunc... handlersFuncs) {
+        return new HandlersChain(EMPTY).combine(handlersFuncs);
+    }
+
+    public int size() {
+        return handlersFuncs.length;
+    }
+
+    public HandlersFunc get(int i) {
+        return handlersFuncs[i];
+    }
+
+    /**
+     * @return 最后一个处理函数，通常是路由自己的处理函数，没有时返回null
+     */
+    public HandlersFunc last() {
+        return handlersFuncs.length == 0 ? null : handlersFuncs[handlersFuncs.length - 1];
+    }
+
+    /**
+     * <pre>{@code
+     * func (group *RouterGroup) combineHandlers(handlers HandlersChain) HandlersChain {
+     * 	finalSize := len(group.Handlers) + len(handlers)
+     * 	assert1(finalSize < int(abortIndex), "too many handlers")
+     * 	mergedHandlers := make(HandlersChain, finalSize)
+     * 	copy(mergedHandlers, group.Handlers)
+     * 	copy(mergedHandlers[len(group.Handlers):], handlers)
+     * 	return mergedHandlers
+     * }
+     * }</pre>
+     *
+     * @param handlersFuncs
+     * @return 当前的处理函数加上handlersFuncs
+     */
+    public HandlersChain combine(HandlersFunc... handlersFuncs) {
+        int size = this.handlersFuncs.length + handlersFuncs.length;
+        if (size >= ABORT_INDEX) {
+            throw new IllegalArgumentException(String.format("too many handlers: %d", size));
+        }
+
+        HandlersFunc[] merged = new HandlersFunc[size];
+        System.arraycopy(this.handlersFuncs, 0, merged, 0, this.handlersFuncs.length);
+        System.arraycopy(handlersFuncs, 0, merged, this.handlersFuncs.length, handlersFuncs.length);
+        return new HandlersChain(merged);
+    }
+
+    public HandlersChain combine(HandlersChain other) {
+        return combine(other.handlersFuncs);
+    }
 }
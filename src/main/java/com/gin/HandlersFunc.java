@@ -1,4 +1,9 @@
 package com.gin;
 
+/**
+ * 对应gin的HandlerFunc，中间件在其中调用{@link Context#next()}执行后面的处理函数
+ */
+@FunctionalInterface
 public interface HandlersFunc {
+    void handle(Context c);
 }
@@ -0,0 +1,112 @@
+package com.gin;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 每个api资产的命中次数
+ * 开启后树中每个节点都有一个{@link LongAdder}，getValue匹配到资产时加一，多线程下不会竞争同一个变量；
+ * 没有开启时计数器为null，查询只多一次判空
+ * 开启和关闭需要与addRoute一样加锁，查询和导出不需要
+ */
+public class HitCounters {
+    private HitCounters() {
+    }
+
+    public static boolean isEnabled(Node root) {
+        return root.hits != null;
+    }
+
+    /**
+     * 给树中所有节点加上计数器，之后addRoute新建的节点也会带上计数器
+     *
+     * @param root
+     */
+    public static void enable(Node root) {
+        Deque<Node> nodes = new ArrayDeque<>();
+        nodes.push(root);
+        while (!nodes.isEmpty()) {
+            Node n = nodes.pop();
+            if (n.hits == null) {
+                n.hits = new LongAdder();
+            }
+            n.getChildren().forEach(nodes::push);
+        }
+    }
+
+    public static void disable(Node root) {
+        Deque<Node> nodes = new ArrayDeque<>();
+        nodes.push(root);
+        while (!nodes.isEmpty()) {
+            Node n = nodes.pop();
+            n.hits = null;
+            n.getChildren().forEach(nodes::push);
+        }
+    }
+
+    /**
+     * 所有api资产的命中次数，顺序与树的先序遍历一致
+     *
+     * @param root
+     * @param reset 是否在读取的同时清零，读取和清零之间的命中会计入下一次
+     * @return
+     */
+    public static List<RouteHits> snapshot(Node root, boolean reset) {
+        List<RouteHits> result = new ArrayList<>();
+        Deque<Node> nodes = new ArrayDeque<>();
+        Deque<String> prefixes = new ArrayDeque<>();
+        nodes.push(root);
+        prefixes.push("");
+
+        while (!nodes.isEmpty()) {
+            Node n = nodes.pop();
+            String fullPath = prefixes.pop() + n.getPath();
+
+            if (n.getAssetId() != null && n.hits != null) {
+                long hits = reset ? n.hits.sumThenReset() : n.hits.sum();
+                result.add(new RouteHits(fullPath, n.getAssetId(), hits));
+            }
+
+            // 倒序入栈，保证先序遍历的顺序与children一致
+            for (int i = n.getChildren().size() - 1; i >= 0; i--) {
+                nodes.push(n.getChildren().get(i));
+                prefixes.push(fullPath);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * 命中次数最多的n个api资产，按命中次数倒序
+     *
+     * @param root
+     * @param n
+     * @return
+     */
+    public static List<RouteHits> top(Node root, int n) {
+        Comparator<RouteHits> byHits = Comparator.comparingLong(RouteHits::getHits);
+        PriorityQueue<RouteHits> queue = new PriorityQueue<>(byHits);
+        for (RouteHits routeHits : snapshot(root, false)) {
+            if (queue.size() < n) {
+                queue.add(routeHits);
+            } else if (n > 0 && routeHits.getHits() > queue.peek().getHits()) {
+                queue.poll();
+                queue.add(routeHits);
+            }
+        }
+
+        List<RouteHits> result = new ArrayList<>(queue);
+        result.sort(byHits.reversed());
+        return result;
+    }
+
+    public static void reset(Node root) {
+        snapshot(root, true);
+    }
+}
@@ -0,0 +1,278 @@
+package com.gin;
+
+import com.gin.util.TreeUtil;
+
+import java.util.Arrays;
+
+/**
+ * 按Host选择{@link MethodTrees}，再按方法和路径匹配资产
+ * 主机名按标签倒序保存在基数树中，例如api.example.com的key是moc.elpmaxe.ipa，公共的后缀只保存一次：
+ * 1. 精确匹配：api.example.com
+ * 2. 子域名通配：*.tenant.example.com匹配a.tenant.example.com和a.b.tenant.example.com，不匹配tenant.example.com，多个通配符都匹配时取最长的
+ * 3. *匹配所有没有其他匹配的主机名
+ * IPv6地址和Host头中的写法一样放在[]中，例如[::1]
+ * 查询时从Host的末尾向前逐个字符比较，忽略端口、结尾的.和ASCII大小写，不会创建String，耗时只与Host的长度有关，与主机数量无关
+ * 修改时复制经过的节点后整体替换根节点，和{@link ConcurrentRouter}一样，查询不需要加锁
+ */
+public class HostRouter {
+    private volatile HostNode root = new HostNode("");
+
+    /**
+     * @param host  主机名，不包含端口，可以是*.开头的通配符、*或者[]中的IPv6地址
+     * @param trees 同一个host再次添加时替换
+     */
+    public synchronized void add(String host, MethodTrees trees) {
+        set(key(host), isWildcard(host), trees);
+    }
+
+    /**
+     * 只清除host对应的MethodTrees，节点保留，之后可以继续添加
+     * 先沿现有的节点查找，host不存在时不复制节点，也不发布新的根节点
+     *
+     * @param host 与添加时一致
+     */
+    public synchronized void remove(String host) {
+        boolean wildcard = isWildcard(host);
+        String key = key(host);
+        HostNode n = root;
+        int i = 0;
+        while (key.startsWith(n.label, i)) {
+            i += n.label.length();
+            if (i == key.length()) {
+                if ((wildcard ? n.wildcard : n.exact) != null) {
+                    set(key, wildcard, null);
+                }
+                return;
+            }
+
+            n = n.child(key.charAt(i));
+            if (n == null) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @param host 请求的Host，可以带端口
+     * @return 没有匹配的主机名时返回null
+     */
+    public MethodTrees get(String host) {
+        int i = hostEnd(host);
+        HostNode n = root;
+        MethodTrees wildcard = null;
+
+        while (true) {
+            String label = n.label;
+            if (label.length() > i) {
+                return wildcard;
+            }
+            for (int j = 0; j < label.length(); j++) {
+                if (lower(host.charAt(i - 1 - j)) != label.charAt(j)) {
+                    return wildcard;
+                }
+            }
+            i -= label.length();
+
+            if (i == 0) {
+                return n.exact != null ? n.exact : wildcard;
+            }
+            // 通配符的key以.结尾，剩下的部分就是非空的子域名
+            if (n.wildcard != null) {
+                wildcard = n.wildcard;
+            }
+
+            HostNode next = n.child(lower(host.charAt(i - 1)));
+            if (next == null) {
+                return wildcard;
+            }
+            n = next;
+        }
+    }
+
+    /**
+     * 按host、方法和路径查找资产ID，路径的匹配规则和{@link MethodTrees#getValue(String, String)}相同
+     *
+     * @return 没有匹配的主机名或方法时返回null
+     */
+    public String getValue(String host, String method, String path) {
+        MethodTrees trees = get(host);
+        return trees == null ? null : trees.getValue(method, path);
+    }
+
+    /**
+     * 同{@link MethodTrees#handle(String, String, Context)}
+     *
+     * @return 没有匹配的主机名时也返回false
+     */
+    public boolean handle(String host, String method, String path, Context c) {
+        MethodTrees trees = get(host);
+        return trees != null && trees.handle(method, path, c);
+    }
+
+    private static boolean isWildcard(String host) {
+        return host.equals("*") || host.startsWith("*.");
+    }
+
+    /**
+     * @return 倒序、转成小写的主机名，通配符保留开头的.，key以.结尾
+     */
+    private static String key(String host) {
+        boolean wildcard = isWildcard(host);
+        String name = wildcard ? host.substring(1) : host;
+        int end = name.endsWith(".") ? name.length() - 1 : name.length();
+        // []中的IPv6地址可以包含:，其他主机名中的:是端口
+        boolean ipv6 = !wildcard && name.length() > 2 && name.charAt(0) == '[' && name.indexOf(']') == name.length() - 1;
+        if (name.indexOf('*') >= 0 || (!ipv6 && (name.indexOf(':') >= 0 || name.indexOf('[') >= 0)) || (end == 0 && !host.equals("*"))) {
+            throw new IllegalArgumentException(String.format("invalid host '%s', wildcard is only allowed as '*' or '*.' prefix", host));
+        }
+
+        char[] key = new char[end];
+        for (int i = 0; i < end; i++) {
+            key[i] = lower(name.charAt(end - 1 - i));
+        }
+        return new String(key);
+    }
+
+    private void set(String rest, boolean wildcard, MethodTrees trees) {
+        HostNode newRoot = root.copy();
+        HostNode n = newRoot;
+        while (true) {
+            int i = TreeUtil.longestCommonPrefix(rest, n.label);
+            if (i < n.label.length()) {
+                n.split(i);
+            }
+
+            if (i == rest.length()) {
+                break;
+            }
+
+            rest = rest.substring(i);
+            int k = n.find(rest.charAt(0));
+            if (k < 0) {
+                HostNode child = new HostNode(rest);
+                n.addChild(child);
+                n = child;
+                break;
+            }
+
+            HostNode child = n.children[k].copy();
+            n.children[k] = child;
+            n = child;
+        }
+
+        if (wildcard) {
+            n.wildcard = trees;
+        } else {
+            n.exact = trees;
+        }
+        root = newRoot;
+    }
+
+    /**
+     * @return 去掉端口和结尾的.之后Host的长度
+     */
+    private static int hostEnd(String host) {
+        int end = host.length();
+        if (end > 0 && host.charAt(0) == '[') {
+            // IPv6地址，端口在]之后
+            int close = host.indexOf(']');
+            if (close >= 0) {
+                end = close + 1;
+            }
+        } else {
+            int colon = host.indexOf(':');
+            if (colon >= 0) {
+                end = colon;
+            }
+        }
+
+        return end > 0 && host.charAt(end - 1) == '.' ? end - 1 : end;
+    }
+
+    private static char lower(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    /**
+     * 倒序主机名的基数树节点，发布之后不再修改
+     */
+    private static class HostNode {
+        private static final HostNode[] NO_CHILDREN = new HostNode[0];
+
+        private String label;
+        /**
+         * 子节点的首字母，按字母排序，与children一一对应
+         */
+        private char[] indices = new char[0];
+        private HostNode[] children = NO_CHILDREN;
+        private MethodTrees exact;
+        private MethodTrees wildcard;
+
+        private HostNode(String label) {
+            this.label = label;
+        }
+
+        private HostNode copy() {
+            HostNode copy = new HostNode(label);
+            copy.indices = indices.clone();
+            copy.children = children.clone();
+            copy.exact = exact;
+            copy.wildcard = wildcard;
+            return copy;
+        }
+
+        private int find(char c) {
+            if (indices.length <= 8) {
+                for (int i = 0; i < indices.length; i++) {
+                    if (indices[i] == c) {
+                        return i;
+                    }
+                }
+                return -1;
+            }
+
+            int i = Arrays.binarySearch(indices, c);
+            return i >= 0 ? i : -1;
+        }
+
+        private HostNode child(char c) {
+            int i = find(c);
+            return i < 0 ? null : children[i];
+        }
+
+        private void addChild(HostNode child) {
+            char c = child.label.charAt(0);
+            int i = -Arrays.binarySearch(indices, c) - 1;
+
+            char[] newIndices = new char[indices.length + 1];
+            System.arraycopy(indices, 0, newIndices, 0, i);
+            newIndices[i] = c;
+            System.arraycopy(indices, i, newIndices, i + 1, indices.length - i);
+
+            HostNode[] newChildren = new HostNode[children.length + 1];
+            System.arraycopy(children, 0, newChildren, 0, i);
+            newChildren[i] = child;
+            System.arraycopy(children, i, newChildren, i + 1, children.length - i);
+
+            indices = newIndices;
+            children = newChildren;
+        }
+
+        /**
+         * label只保留前i个字符，其余部分和原来的子节点、值一起移动到新的子节点
+         */
+        private void split(int i) {
+            HostNode child = new HostNode(label.substring(i));
+            child.indices = indices;
+            child.children = children;
+            child.exact = exact;
+            child.wildcard = wildcard;
+
+            label = label.substring(0, i);
+            indices = new char[]{child.label.charAt(0)};
+            children = new HostNode[]{child};
+            exact = null;
+            wildcard = null;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.gin;
+
+/**
+ * 标准HTTP方法，用作{@link MethodTrees}的数组下标
+ */
+public enum HttpMethod {
+    GET,
+    HEAD,
+    POST,
+    PUT,
+    PATCH,
+    DELETE,
+    CONNECT,
+    OPTIONS,
+    TRACE
+    ;
+
+    /**
+     * 先按长度和首字母确定候选，再逐字符比较
+     *
+     * @param method
+     * @return 不是标准方法时返回null
+     */
+    public static HttpMethod parse(String method) {
+        HttpMethod candidate = candidate(method.length(), method.isEmpty() ? 0 : method.charAt(0));
+        return candidate != null && candidate.name().equals(method) ? candidate : null;
+    }
+
+    /**
+     * 直接解析请求行中的方法，不需要先解码成String
+     *
+     * @param method
+     * @param from
+     * @param to
+     * @return 不是标准方法时返回null
+     */
+    public static HttpMethod parse(byte[] method, int from, int to) {
+        HttpMethod candidate = candidate(to - from, to > from ? (char) method[from] : 0);
+        if (candidate == null) {
+            return null;
+        }
+
+        String name = candidate.name();
+        for (int i = 1; i < name.length(); i++) {
+            if (method[from + i] != name.charAt(i)) {
+                return null;
+            }
+        }
+        return candidate;
+    }
+
+    private static HttpMethod candidate(int length, char first) {
+        switch (length) {
+            case 3:
+                return first == 'G' ? GET : first == 'P' ? PUT : null;
+            case 4:
+                return first == 'H' ? HEAD : first == 'P' ? POST : null;
+            case 5:
+                return first == 'P' ? PATCH : first == 'T' ? TRACE : null;
+            case 6:
+                return first == 'D' ? DELETE : null;
+            case 7:
+                return first == 'O' ? OPTIONS : first == 'C' ? CONNECT : null;
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.gin;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 以具体的请求url为key，缓存匹配到的节点
+ * 淘汰策略参考W-TinyLFU：
+ * 1. 新的url先进入一个很小的LRU窗口
+ * 2. 被挤出窗口的url需要与主区域中最久未访问的url比较访问频率，频率更高才能进入主区域，避免偶发的url把热点url挤掉
+ * 3. 访问频率由{@link FrequencySketch}统计，定期减半，保证能跟上流量的变化
+ * 按url的hash分段加锁，每段各自淘汰
+ * 每个缓存项记录写入时树的版本，树被修改后旧版本的缓存项全部失效
+ */
+public class LookupCache {
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final FrequencySketch sketch;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param maximumSize 最多缓存的url数量
+     */
+    public LookupCache(int maximumSize) {
+        int segmentSize = Math.max(2, (maximumSize + SEGMENTS - 1) / SEGMENTS);
+        // 窗口占1%，至少1个
+        int windowSize = Math.max(1, segmentSize / 100);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(windowSize, segmentSize - windowSize);
+        }
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+
+    /**
+     * @param path
+     * @param version 当前树的版本
+     * @return 缓存的节点，没有或者已经过期时返回null，缓存的是匹配到资产的节点时和直接查询一样计入命中次数
+     */
+    public Node get(String path, long version) {
+        int hash = spread(path.hashCode());
+        sketch.increment(hash);
+
+        Node node = segmentFor(hash).get(path, version);
+        if (node == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+
+        return node;
+    }
+
+    /**
+     * @param path
+     * @param node
+     * @param matched 是否匹配到了资产，而不是停留在最后访问的节点
+     * @param version 查询之前读到的树的版本
+     */
+    public void put(String path, Node node, boolean matched, long version) {
+        int hash = spread(path.hashCode());
+        segmentFor(hash).put(path, new Entry(node, matched, version), sketch);
+    }
+
+    public void invalidateAll() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+
+        return size;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    private Segment segmentFor(int hash) {
+        return segments[(hash >>> 16) & (SEGMENTS - 1)];
+    }
+
+    private static int spread(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private static class Entry {
+        private final Node node;
+        private final boolean matched;
+        private final long version;
+
+        private Entry(Node node, boolean matched, long version) {
+            this.node = node;
+            this.matched = matched;
+            this.version = version;
+        }
+    }
+
+    private static class Segment {
+        private final int windowSize;
+        private final int mainSize;
+        private final LinkedHashMap<String, Entry> window = new LinkedHashMap<>(16, 0.75f, true);
+        private final LinkedHashMap<String, Entry> main = new LinkedHashMap<>(16, 0.75f, true);
+
+        private Segment(int windowSize, int mainSize) {
+            this.windowSize = windowSize;
+            this.mainSize = mainSize;
+        }
+
+        private synchronized Node get(String path, long version) {
+            Entry entry = window.get(path);
+            if (entry == null) {
+                entry = main.get(path);
+            }
+            if (entry == null) {
+                return null;
+            }
+
+            if (entry.version != version) {
+                // 树已经被修改过
+                window.remove(path);
+                main.remove(path);
+                return null;
+            }
+
+            return entry.matched ? Node.hit(entry.node) : entry.node;
+        }
+
+        private synchronized void put(String path, Entry entry, FrequencySketch sketch) {
+            if (main.containsKey(path)) {
+                main.put(path, entry);
+                return;
+            }
+
+            window.put(path, entry);
+            if (window.size() <= windowSize) {
+                return;
+            }
+
+            // 窗口满了，最久未访问的url作为候选者尝试进入主区域
+            Iterator<Map.Entry<String, Entry>> candidates = window.entrySet().iterator();
+            Map.Entry<String, Entry> candidate = candidates.next();
+            candidates.remove();
+
+            if (main.size() < mainSize) {
+                main.put(candidate.getKey(), candidate.getValue());
+                return;
+            }
+
+            Iterator<Map.Entry<String, Entry>> victims = main.entrySet().iterator();
+            Map.Entry<String, Entry> victim = victims.next();
+            if (sketch.frequency(spread(candidate.getKey().hashCode())) > sketch.frequency(spread(victim.getKey().hashCode()))) {
+                victims.remove();
+                main.put(candidate.getKey(), candidate.getValue());
+            }
+        }
+
+        private synchronized void clear() {
+            window.clear();
+            main.clear();
+        }
+
+        private synchronized int size() {
+            return window.size() + main.size();
+        }
+    }
+
+    /**
+     * 4行的Count-Min Sketch，统计最近一段时间内每个url的大致访问次数
+     * 计数不加锁，并发下少计几次不影响淘汰的判断
+     */
+    static class FrequencySketch {
+        private static final int[] SEEDS = {0x97CB3127, 0x5B8B6C6F, 0x3C6EF372, 0xA54FF53A};
+
+        private final int[] table;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int maximumSize) {
+            int size = Integer.highestOneBit(Math.max(64, maximumSize) - 1) << 1;
+            this.table = new int[size];
+            this.mask = size - 1;
+            this.sampleSize = 10 * Math.max(64, maximumSize);
+        }
+
+        void increment(int hash) {
+            for (int seed : SEEDS) {
+                int i = index(hash, seed);
+                if (table[i] < Integer.MAX_VALUE) {
+                    table[i]++;
+                }
+            }
+
+            if (++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        int frequency(int hash) {
+            int frequency = Integer.MAX_VALUE;
+            for (int seed : SEEDS) {
+                frequency = Math.min(frequency, table[index(hash, seed)]);
+            }
+
+            return frequency;
+        }
+
+        /**
+         * 所有计数减半，让很久之前的热点逐渐冷却
+         */
+        private void reset() {
+            additions = 0;
+            for (int i = 0; i < table.length; i++) {
+                table[i] >>>= 1;
+            }
+        }
+
+        private int index(int hash, int seed) {
+            int h = (hash ^ seed) * 0x85EBCA6B;
+            h ^= h >>> 13;
+            return h & mask;
+        }
+    }
+}
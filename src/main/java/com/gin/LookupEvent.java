@@ -0,0 +1,15 @@
+package com.gin;
+
+import java.util.function.Supplier;
+
+/**
+ * 每次lookup的JFR事件
+ * Java 8的API中没有JFR，这里什么都不做；jar是multi-release的，Java 11+会加载META-INF/versions/11中继承jdk.jfr.Event的实现
+ */
+final class LookupEvent {
+    private LookupEvent() {
+    }
+
+    static void commit(Supplier<String> path, Node n, boolean hit, SkippedNodeStack stack, long nanos) {
+    }
+}
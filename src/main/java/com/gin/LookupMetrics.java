@@ -0,0 +1,155 @@
+package com.gin;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 查询开销的统计，默认关闭，可以在运行时通过{@link #enable()}和{@link #disable()}随时开关
+ * 关闭时{@link Node#lookup(String)}等方法只多读一次volatile变量，查询时也不更新{@link SkippedNodeStack}中的计数器；
+ * 开启后每次lookup记录经过的节点数、回溯次数、回溯栈的最大深度和耗时：
+ * 1. 汇总到按2的幂分桶的耗时直方图和计数器中，通过{@link #snapshot()}查询
+ * 2. 运行在Java 11+时同时提交{@link LookupEvent}，需要在JFR的配置中开启com.gin.Lookup事件
+ * 只统计lookup，直接调用getValue的查询不受影响
+ */
+public final class LookupMetrics {
+    /**
+     * 直方图的桶数，第i个桶是[2^(i-1), 2^i)纳秒
+     */
+    static final int BUCKETS = 64;
+
+    static volatile boolean enabled;
+
+    private static final boolean JFR = jfrAvailable();
+
+    private static final LongAdder lookups = new LongAdder();
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder visited = new LongAdder();
+    private static final LongAdder pushed = new LongAdder();
+    private static final LongAdder backtracked = new LongAdder();
+    private static final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+    private static final LongAdder[] latency = new LongAdder[BUCKETS];
+
+    static {
+        for (int i = 0; i < BUCKETS; i++) {
+            latency[i] = new LongAdder();
+        }
+    }
+
+    private LookupMetrics() {
+    }
+
+    public static void enable() {
+        enabled = true;
+    }
+
+    public static void disable() {
+        enabled = false;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 清空已经统计的数据，不影响开关状态
+     */
+    public static void reset() {
+        lookups.reset();
+        hits.reset();
+        visited.reset();
+        pushed.reset();
+        backtracked.reset();
+        maxDepth.reset();
+        for (LongAdder bucket : latency) {
+            bucket.reset();
+        }
+    }
+
+    /**
+     * 查询期间仍在统计的数据可能只有一部分被计入
+     *
+     * @return
+     */
+    public static LookupStats snapshot() {
+        long[] buckets = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = latency[i].sum();
+        }
+        return new LookupStats(lookups.sum(), hits.sum(), visited.sum(), pushed.sum(), backtracked.sum(), maxDepth.get(), buckets);
+    }
+
+    static Node lookup(Node root, String path, Params params) {
+        SkippedNodeStack stack = SkippedNodeStack.local();
+        long start = System.nanoTime();
+        Node n;
+        stack.counting = true;
+        try {
+            n = root.getValue(path, stack, params);
+        } finally {
+            stack.counting = false;
+        }
+        record(n, stack, System.nanoTime() - start, () -> path);
+        return n;
+    }
+
+    static Node lookup(Node root, byte[] path, int from, int to) {
+        SkippedNodeStack stack = SkippedNodeStack.local();
+        long start = System.nanoTime();
+        Node n;
+        stack.counting = true;
+        try {
+            n = root.getValue(path, from, to, stack);
+        } finally {
+            stack.counting = false;
+        }
+        record(n, stack, System.nanoTime() - start, () -> new String(path, from, to - from, StandardCharsets.UTF_8));
+        return n;
+    }
+
+    static Node lookup(Node root, ByteBuffer path) {
+        SkippedNodeStack stack = SkippedNodeStack.local();
+        long start = System.nanoTime();
+        Node n;
+        stack.counting = true;
+        try {
+            n = root.getValue(path, stack);
+        } finally {
+            stack.counting = false;
+        }
+        record(n, stack, System.nanoTime() - start, () -> StandardCharsets.UTF_8.decode(path.duplicate()).toString());
+        return n;
+    }
+
+    private static void record(Node n, SkippedNodeStack stack, long nanos, Supplier<String> path) {
+        boolean hit = n != null && n.getAssetId() != null;
+        lookups.increment();
+        if (hit) {
+            hits.increment();
+        }
+        visited.add(stack.visited);
+        pushed.add(stack.pushed);
+        backtracked.add(stack.backtracked);
+        maxDepth.accumulate(stack.maxDepth);
+        latency[bucket(nanos)].increment();
+
+        if (JFR) {
+            LookupEvent.commit(path, n, hit, stack, nanos);
+        }
+    }
+
+    static int bucket(long nanos) {
+        return nanos <= 0 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos));
+    }
+
+    private static boolean jfrAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+}
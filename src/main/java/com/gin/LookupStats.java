@@ -0,0 +1,50 @@
+package com.gin;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * {@link LookupMetrics#snapshot()}的结果
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LookupStats {
+    private long lookups;
+    /**
+     * 匹配到资产的查询
+     */
+    private long hits;
+    private long nodesVisited;
+    private long skippedPushes;
+    private long backtracks;
+    /**
+     * 所有查询中回溯栈的最大深度
+     */
+    private long maxSkippedDepth;
+    /**
+     * 耗时直方图，第i个桶是[2^(i-1), 2^i)纳秒
+     */
+    private long[] latencyBuckets;
+
+    public long getMisses() {
+        return lookups - hits;
+    }
+
+    /**
+     * @param quantile 0到1之间
+     * @return 分位数所在桶的上界(纳秒)，没有数据时返回0
+     */
+    public long getLatencyPercentile(double quantile) {
+        long target = (long) Math.ceil(quantile * lookups);
+        long count = 0;
+        for (int i = 0; i < latencyBuckets.length; i++) {
+            count += latencyBuckets[i];
+            if (count >= Math.max(target, 1)) {
+                return i == 0 ? 0 : i >= 63 ? Long.MAX_VALUE : (1L << i) - 1;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,187 @@
+package com.gin;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 估算一棵树占用的堆内存，按64位JVM开启压缩指针计算(对象头12字节，引用4字节，按8字节对齐)
+ * 被多个节点共享的对象只计算一次，不包括命中计数器
+ * ArrayList的实际容量在Java 9以上读取不到时，按默认扩容规则估算
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MemoryFootprint {
+    private static final int HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+    private static final int REFERENCE = 4;
+    private static final boolean COMPACT_STRINGS = hasField(String.class, "coder");
+    private static final Field ELEMENT_DATA = elementData();
+
+    private long nodes;
+    private long routes;
+    private long nodeBytes;
+    private long labelBytes;
+    private long assetIdBytes;
+    private long childrenBytes;
+    private long indexBytes;
+
+    public long getTotalBytes() {
+        return nodeBytes + labelBytes + assetIdBytes + childrenBytes + indexBytes;
+    }
+
+    public double getBytesPerRoute() {
+        return routes == 0 ? 0 : (double) getTotalBytes() / routes;
+    }
+
+    public static MemoryFootprint of(Node root) {
+        MemoryFootprint footprint = new MemoryFootprint();
+        Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        long nodeSize = shallowSize(Node.class);
+
+        Deque<Node> nodes = new ArrayDeque<>();
+        nodes.push(root);
+        while (!nodes.isEmpty()) {
+            Node n = nodes.pop();
+            footprint.nodes++;
+            footprint.nodeBytes += nodeSize;
+            if (n.getAssetId() != null) {
+                footprint.routes++;
+                footprint.assetIdBytes += stringSize(n.getAssetId(), seen);
+            }
+            footprint.labelBytes += stringSize(n.getPath(), seen);
+            if (seen.add(n.getPathBytes())) {
+                footprint.labelBytes += align(ARRAY_HEADER + n.getPathBytes().length);
+            }
+            footprint.childrenBytes += listSize(n.getChildren(), seen);
+            footprint.indexBytes += indexSize(n.getChildIndex(), seen);
+
+            n.getChildren().forEach(nodes::push);
+        }
+
+        return footprint;
+    }
+
+    private static long stringSize(String s, Set<Object> seen) {
+        if (!seen.add(s)) {
+            return 0;
+        }
+
+        int length = s.length();
+        if (COMPACT_STRINGS) {
+            for (int i = 0; i < s.length(); i++) {
+                if (s.charAt(i) > 0xFF) {
+                    length = s.length() * 2;
+                    break;
+                }
+            }
+        } else {
+            length = s.length() * 2;
+        }
+        return shallowSize(String.class) + align(ARRAY_HEADER + length);
+    }
+
+    private static long listSize(List<Node> list, Set<Object> seen) {
+        if (!seen.add(list)) {
+            return 0;
+        }
+        if (!(list instanceof ArrayList)) {
+            return align(HEADER + REFERENCE);
+        }
+
+        long size = shallowSize(ArrayList.class);
+        if (ELEMENT_DATA != null) {
+            try {
+                // 空的ArrayList共享同一个数组
+                Object[] elementData = (Object[]) ELEMENT_DATA.get(list);
+                return seen.add(elementData) ? size + align(ARRAY_HEADER + (long) elementData.length * REFERENCE) : size;
+            } catch (IllegalAccessException e) {
+                // 按扩容规则估算
+            }
+        }
+
+        // new ArrayList<>()之后逐个add：0，10，15，22...
+        if (list.isEmpty()) {
+            return size;
+        }
+        int capacity = 10;
+        while (capacity < list.size()) {
+            capacity += capacity >> 1;
+        }
+        return size + align(ARRAY_HEADER + (long) capacity * REFERENCE);
+    }
+
+    private static long indexSize(ChildIndex index, Set<Object> seen) {
+        if (!seen.add(index)) {
+            return 0;
+        }
+
+        long size = shallowSize(ChildIndex.class)
+                + align(ARRAY_HEADER + index.chars.length * 2L)
+                + align(ARRAY_HEADER + index.positions.length * 4L);
+        if (index.table != null) {
+            size += align(ARRAY_HEADER + index.table.length * 4L);
+        }
+        return size;
+    }
+
+    private static long shallowSize(Class<?> type) {
+        long size = HEADER;
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+
+                Class<?> t = field.getType();
+                if (t == long.class || t == double.class) {
+                    size += 8;
+                } else if (t == int.class || t == float.class) {
+                    size += 4;
+                } else if (t == short.class || t == char.class) {
+                    size += 2;
+                } else if (t == byte.class || t == boolean.class) {
+                    size += 1;
+                } else {
+                    size += REFERENCE;
+                }
+            }
+        }
+        return align(size);
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+
+    private static boolean hasField(Class<?> type, String name) {
+        try {
+            type.getDeclaredField(name);
+            return true;
+        } catch (NoSuchFieldException e) {
+            return false;
+        }
+    }
+
+    private static Field elementData() {
+        try {
+            Field field = ArrayList.class.getDeclaredField("elementData");
+            field.setAccessible(true);
+            return field;
+        } catch (NoSuchFieldException | RuntimeException e) {
+            // Java 9以上没有--add-opens java.base/java.util=ALL-UNNAMED时不能访问
+            return null;
+        }
+    }
+}
@@ -1,16 +1,69 @@
 package com.gin;
 
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+/**
+ * 标准方法的树按{@link HttpMethod#ordinal()}放在数组中，自定义方法放在customTrees中
+ * 通过{@link #setMethodTrees(List)}和{@link #add(MethodTree)}修改，直接修改methodTrees不会更新索引
+ */
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 public class MethodTrees {
-    private List<MethodTree> methodTrees;
+    private List<MethodTree> methodTrees = new ArrayList<>();
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Node[] trees = new Node[HttpMethod.values().length];
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Map<String, Node> customTrees = new HashMap<>();
+
+    public MethodTrees(List<MethodTree> methodTrees) {
+        setMethodTrees(methodTrees);
+    }
+
+    public void setMethodTrees(List<MethodTree> methodTrees) {
+        this.methodTrees = methodTrees;
+        this.trees = new Node[HttpMethod.values().length];
+        this.customTrees = new HashMap<>();
+        for (MethodTree methodTree : methodTrees) {
+            index(methodTree);
+        }
+    }
+
+    public void add(MethodTree methodTree) {
+        methodTrees.add(methodTree);
+        index(methodTree);
+    }
+
+    /**
+     * 和gin一样，同一个方法有多棵树时取第一棵
+     */
+    private void index(MethodTree methodTree) {
+        HttpMethod method = HttpMethod.parse(methodTree.getMethod());
+        if (method == null) {
+            customTrees.putIfAbsent(methodTree.getMethod(), methodTree.getRoot());
+        } else if (trees[method.ordinal()] == null) {
+            trees[method.ordinal()] = methodTree.getRoot();
+        }
+    }
 
     /**
      * <pre>{@code
@@ -27,6 +80,93 @@ public class MethodTrees {
      * @return
      */
     public Node get(String method) {
-        return methodTrees.stream().filter(methodTree -> methodTree.getMethod().equals(method)).findFirst().map(MethodTree::getRoot).orElse(null);
+        HttpMethod httpMethod = HttpMethod.parse(method);
+        return httpMethod != null ? trees[httpMethod.ordinal()] : customTrees.get(method);
+    }
+
+    public Node get(HttpMethod method) {
+        return trees[method.ordinal()];
+    }
+
+    public Node get(byte[] method, int from, int to) {
+        HttpMethod httpMethod = HttpMethod.parse(method, from, to);
+        if (httpMethod != null) {
+            return trees[httpMethod.ordinal()];
+        }
+        // 自定义方法很少见，这里才需要解码
+        return customTrees.isEmpty() ? null : customTrees.get(new String(method, from, to - from, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 根据方法和路径直接查找资产ID，匹配规则和{@link Node#lookup(String)}相同
+     *
+     * @param method
+     * @param path
+     * @return 没有这个方法的树时返回null
+     */
+    public String getValue(String method, String path) {
+        return assetId(get(method), path);
+    }
+
+    public String getValue(HttpMethod method, String path) {
+        return assetId(get(method), path);
+    }
+
+    public String getValue(byte[] method, int methodFrom, int methodTo, byte[] path, int pathFrom, int pathTo) {
+        Node root = get(method, methodFrom, methodTo);
+        if (root == null) {
+            return null;
+        }
+        Node n = root.lookup(path, pathFrom, pathTo);
+        return n == null ? null : n.getAssetId();
+    }
+
+    /**
+     * 把路由添加到对应方法的树上，还没有这个方法的树时创建一棵，见{@link RouterGroup}
+     * Not concurrency-safe!
+     *
+     * @param method
+     * @param path
+     * @param assetId
+     * @param handlers
+     */
+    public void addRoute(String method, String path, String assetId, HandlersChain handlers) {
+        Node root = get(method);
+        if (root == null) {
+            root = new Node();
+            add(new MethodTree(method, root));
+        }
+        root.addRoute(path, assetId, handlers);
+    }
+
+    /**
+     * 对应gin的handleHTTPRequest，匹配到带处理函数的路由后从第一个处理函数开始执行
+     * 路由匹配规则和{@link Node#lookup(String, Params)}相同，路径参数记录在c的params中
+     *
+     * @param method
+     * @param path
+     * @param c      会先被重置，可以在同一个线程中复用
+     * @return 没有匹配到路由或者路由没有处理函数时返回false，由调用方返回404
+     */
+    public boolean handle(String method, String path, Context c) {
+        c.reset(method, path);
+        Node root = get(method);
+        Node n = root == null ? null : root.match(path, c.skippedNodes, c.getParams());
+        if (n == null || n.getAssetId() == null || n.getHandlers() == null) {
+            return false;
+        }
+
+        c.setAssetId(n.getAssetId());
+        c.setHandlers(n.getHandlers());
+        c.next();
+        return true;
+    }
+
+    private static String assetId(Node root, String path) {
+        if (root == null) {
+            return null;
+        }
+        Node n = root.lookup(path);
+        return n == null ? null : n.getAssetId();
     }
 }
@@ -1,30 +1,128 @@
 package com.gin;
 
 import com.gin.util.TreeUtil;
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 import lombok.SneakyThrows;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * <a href="https://github.com/gin-gonic/gin/blob/master/tree.go#L417">参考文件</a>
  * 检索和插入使用的是label\continue label的做法，原因是堆栈层数可能会过多
- * 由于是线程不安全的，每次addRoute之前需要加锁
+ * 由于是线程不安全的，每次addRoute之前需要加锁；需要在修改的同时并发查询时使用{@link ConcurrentRouter}
  */
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 public class Node {
+    private static final byte[] EMPTY_BYTES = new byte[0];
+    /**
+     * {@link TreeCompactor}给叶子节点使用的共享空列表，新增子节点时才换成ArrayList
+     */
+    static final List<Node> NO_CHILDREN = Collections.emptyList();
+
     private String path = "";
     private NodeType nType = NodeType.STATIC;
     private Node parent = null;
     private List<Node> children = new ArrayList<>();
     private String assetId;
+    /**
+     * 路由的处理函数，分组中间件在注册时已经合并进来，和assetId一起设置、移动和清除，见{@link RouterGroup}
+     */
+    @EqualsAndHashCode.Exclude
+    private HandlersChain handlers;
+    /**
+     * path的UTF-8编码，随path一起更新，用于直接匹配byte[]和ByteBuffer
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    private byte[] pathBytes = EMPTY_BYTES;
+    /**
+     * 路径参数节点的类型限制，例如{id:int}/，随path一起更新，没有类型限制时为null
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    private ParamMatcher matcher;
+    /**
+     * 命中次数，只有通过{@link HitCounters#enable(Node)}开启之后才不为null，见{@link HitCounters}
+     * 开启后树中的每个节点都有计数器，计数器跟随assetId一起移动
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    LongAdder hits;
+    /**
+     * 静态子节点的首字母索引，children增删或者静态子节点的首字母变化时需要调用{@link #reindex()}
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    private ChildIndex childIndex = ChildIndex.EMPTY;
+
+    public Node(String path, NodeType nType, Node parent, List<Node> children, String assetId) {
+        this.setPath(path);
+        this.nType = nType;
+        this.parent = parent;
+        this.children = children;
+        this.assetId = assetId;
+        reindex();
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+        this.pathBytes = path.isEmpty() ? EMPTY_BYTES : path.getBytes(StandardCharsets.UTF_8);
+        this.matcher = ParamMatcher.of(path);
+    }
+
+    public void setChildren(List<Node> children) {
+        this.children = children;
+        reindex();
+    }
+
+    /**
+     * 供{@link TreeCompactor}使用，path、pathBytes和childIndex可以是多个节点共享的实例
+     */
+    void setLabel(String path, byte[] pathBytes) {
+        this.path = path;
+        this.pathBytes = pathBytes;
+        this.matcher = ParamMatcher.of(path);
+    }
+
+    void setChildren(List<Node> children, ChildIndex childIndex) {
+        this.children = children;
+        this.childIndex = childIndex;
+    }
+
+    byte[] getPathBytes() {
+        return pathBytes;
+    }
+
+    ParamMatcher getMatcher() {
+        return matcher;
+    }
+
+    ChildIndex getChildIndex() {
+        return childIndex;
+    }
 
     @Override
     public String toString() {
@@ -38,7 +136,14 @@ public class Node {
     }
 
     public String getIndices() {
-        return this.getChildren().stream().filter(node -> node.getNType() != NodeType.PARAM).map(Node::getPath).map(path -> path.substring(0, 1)).collect(Collectors.joining());
+        // 和gin一样按子节点的插入顺序，查找子节点用的是childIndex
+        StringBuilder indices = new StringBuilder(children.size());
+        for (Node child : children) {
+            if (child.nType != NodeType.PARAM) {
+                indices.append(child.path.charAt(0));
+            }
+        }
+        return indices.toString();
     }
 
     public boolean isWildChild() {
@@ -49,22 +154,150 @@ public class Node {
         return this.getChildren().get(this.getChildren().size() - 1).getNType() == NodeType.PARAM;
     }
 
+    /**
+     * 路径参数子节点能否匹配从offset开始的这一段url，带类型限制的路径参数在这里提前剪枝
+     *
+     * @param path
+     * @param offset 这一段url的开始下标
+     * @return 没有路径参数子节点时返回false
+     */
+    boolean acceptsWild(String path, int offset) {
+        if (!isWildChild()) {
+            return false;
+        }
+
+        ParamMatcher wild = children.get(children.size() - 1).matcher;
+        if (wild == null) {
+            return true;
+        }
+
+        int end = path.indexOf('/', offset);
+        return wild.matches(path, offset, end < 0 ? path.length() : end);
+    }
+
+    /**
+     * UTF-8编码的url，见{@link #acceptsWild(String, int)}
+     */
+    boolean acceptsWild(PathBytes path, int offset) {
+        if (!isWildChild()) {
+            return false;
+        }
+
+        ParamMatcher wild = children.get(children.size() - 1).matcher;
+        if (wild == null) {
+            return true;
+        }
+
+        int end = path.indexOf((byte) '/', offset);
+        return wild.matches(path, offset, end < 0 ? path.length() : end);
+    }
+
+    void reindex() {
+        this.childIndex = ChildIndex.of(children);
+    }
+
+    /**
+     * 按权重调整静态子节点的查找顺序，见{@link ChildOrdering}
+     *
+     * @param weights 下标与children一致
+     * @return 索引是否被替换
+     */
+    boolean reorder(long[] weights) {
+        ChildIndex reordered = childIndex.reorder(weights);
+        if (reordered == childIndex || Arrays.equals(reordered.chars, childIndex.chars)) {
+            return false;
+        }
+
+        this.childIndex = reordered;
+        return true;
+    }
+
+    private void reindexParent() {
+        if (parent != null) {
+            parent.reindex();
+        }
+    }
+
+    /**
+     * @param c
+     * @return 首字母为c的静态子节点，没有则返回null
+     */
+    Node staticChild(char c) {
+        int i = childIndex.find(c);
+        return i < 0 ? null : children.get(i);
+    }
+
+    /**
+     * 开启命中计数时，新节点也需要计数器
+     */
+    private LongAdder newCounter() {
+        return hits == null ? null : new LongAdder();
+    }
+
+    /**
+     * 匹配成功时增加命中次数，没有开启时只多一次判空
+     * 只在url完全匹配到资产时调用，也就是{@link #match}返回资产的情况，没有匹配到时停留的节点即使有资产也不计数
+     */
+    static Node hit(Node n) {
+        LongAdder counter = n.hits;
+        if (counter != null && n.assetId != null) {
+            counter.increment();
+        }
+
+        return n;
+    }
+
+    /**
+     * 同{@link #hit(Node)}，同时在回溯栈中记录这次查询是否匹配到了资产
+     */
+    private static Node hit(Node n, SkippedNodeStack skippedNodes) {
+        skippedNodes.matched = n.assetId != null;
+        return hit(n);
+    }
+
     /**
      * addChild will add a child node, keeping wildcardChild at the end
      *
      * @param child
      */
     private void addChild(Node child) {
+        if (this.children == NO_CHILDREN) {
+            this.children = new ArrayList<>(1);
+        }
+
         if (this.isWildChild() && !this.getChildren().isEmpty()) {
             this.getChildren().add(this.getChildren().size() - 1, child);
-            return;
+        } else {
+            this.getChildren().add(child);
         }
+        reindex();
+    }
 
-        this.getChildren().add(child);
+    /**
+     * 路径参数的名字不能为空且只能包含字母、数字和_，类型必须是{@link ParamMatcher}支持的
+     *
+     * @param wildcard
+     * @param fullPath
+     */
+    @SneakyThrows
+    static void checkWildcard(TreeUtil.FindWildcard wildcard, String fullPath) {
+        if (!wildcard.isValid()) {
+            throw new Exception(String.format("wildcard names may only contain letters, digits and '_', has: '%s' in path '%s'", wildcard.getWildcard(), fullPath));
+        }
+
+        if (wildcard.getWildcard().charAt(1) == '}' || wildcard.getWildcard().charAt(1) == ':') {
+            throw new Exception(String.format("wildcards must be named with a non-empty name in path '%s'", fullPath));
+        }
+
+        try {
+            ParamMatcher.parse(wildcard.getWildcard());
+        } catch (IllegalArgumentException e) {
+            throw new Exception(String.format("%s in path '%s'", e.getMessage(), fullPath));
+        }
     }
 
     @SneakyThrows
-    private void insertChild(String path, String fullPath, String assetId) {
+    private void insertChild(String path, String fullPath, String assetId, HandlersChain handlers) {
         Node n = this;
         while (true) {
             // Find prefix until first wildcard
@@ -73,17 +306,12 @@ public class Node {
                 break;
             }
 
-            if (!wildcard.isValid()) {
-                throw new Exception(String.format("only wildcard path ends with '}/' are allowed, has: '%s' in path '%s'", wildcard.getWildcard(), fullPath));
-            }
-
-            if (wildcard.getWildcard().length() < 3) {
-                throw new Exception(String.format("wildcards must be named with a non-empty name in path '%s'", fullPath));
-            }
+            checkWildcard(wildcard, fullPath);
 
             // 根节点不能是路径参数匹配，所以只有i > 0 时，才会填充path
             if (wildcard.getI() > 0) {
                 n.setPath(path.substring(0, wildcard.getI()));
+                n.reindexParent();
                 path = path.substring(wildcard.getI());
             }
 
@@ -91,6 +319,7 @@ public class Node {
             child.setNType(NodeType.PARAM);
             child.setPath(wildcard.getWildcard());
             child.setParent(n);
+            child.hits = n.newCounter();
 
             n.addChild(child);
             n = child;
@@ -102,6 +331,7 @@ public class Node {
                 path = path.substring(wildcard.getWildcard().length());
                 Node child1 = new Node();
                 child1.setParent(n);
+                child1.hits = n.newCounter();
 
                 n.addChild(child1);
                 n = child1;
@@ -109,12 +339,15 @@ public class Node {
             }
 
             n.setAssetId(assetId);
+            n.setHandlers(handlers);
             // catchAll 在本项目中被排除
             return;
         }
 
         n.setPath(path);
+        n.reindexParent();
         n.setAssetId(assetId);
+        n.setHandlers(handlers);
     }
 
     @SneakyThrows
@@ -125,18 +358,45 @@ public class Node {
     /**
      * addRoute adds a node with the given handle to the path.
      * Not concurrency-safe! 需要加锁
+     * 只修改资产ID，已有的路由保留原来的处理函数，{@link #apply(RouteDiff)}等批量变更也通过这里重新注册路由
      *
      * @param path
      */
-    @SneakyThrows
     public void addRoute(String path, String assetId) {
+        addRoute(path, assetId, null, true);
+    }
+
+    /**
+     * 同{@link #addRoute(String, String)}，同时设置路由的处理函数，已有的路由会被替换
+     *
+     * @param path
+     * @param assetId
+     * @param handlers 可以为null
+     */
+    public void addRoute(String path, String assetId, HandlersChain handlers) {
+        addRoute(path, assetId, handlers, false);
+    }
+
+    /**
+     * @param keepHandlers 路由已经存在时不修改处理函数
+     */
+    @SneakyThrows
+    private void addRoute(String path, String assetId, HandlersChain handlers, boolean keepHandlers) {
         Node n = this;
 
         String fullPath = path;
 
+        // 先检查所有的路径参数，避免抛出异常时树已经被修改了一部分
+        for (int i = path.indexOf('{'); i >= 0; i = path.indexOf('{', i + 1)) {
+            int length = TreeUtil.wildcardLength(path, i);
+            if (length > 0) {
+                checkWildcard(TreeUtil.findWildcard(path.substring(i, i + length)), fullPath);
+            }
+        }
+
         // 当前树并没有任何节点
         if (n.getPath().isEmpty() && n.getChildren().isEmpty()) {
-            n.insertChild(path, fullPath, assetId);
+            n.insertChild(path, fullPath, assetId, handlers);
             n.setNType(NodeType.ROOT);
             return;
         }
@@ -160,15 +420,21 @@ public class Node {
                         n.getAssetId()
                 );
 
+                child.setHandlers(n.getHandlers());
                 n.getChildren().forEach(node -> node.setParent(child));
 
                 // 新的节点直接变成当前节点的子节点
-                n.setChildren(new ArrayList<>());
-                n.getChildren().add(child);
+                List<Node> children = new ArrayList<>();
+                children.add(child);
+                n.setChildren(children);
 
-                // 重置当前节点属性
+                // 重置当前节点属性，首字母不变，父节点的索引不需要更新
                 n.setPath(path.substring(0, i));
                 n.setAssetId(null);
+                n.setHandlers(null);
+                // 计数器跟随资产移动到子节点
+                child.hits = n.hits;
+                n.hits = n.newCounter();
             }
 
             // Make new node a child of this node
@@ -186,24 +452,23 @@ public class Node {
 //                    continue walk;
 //                }
 
-                if (!path.startsWith("{id}/")) {
+                if (TreeUtil.wildcardLength(path, 0) < 0) {
                     // 证明下一个节点不是路径参数，但是节点的节点有可能是
                     // Check if a child with the next path byte exists
                     // 如果当前节点还有STATIC类型的子节点，就依次匹配
-                    for (int j = 0; j < n.getChildren().size(); j++) {
-                        if (n.getChildren().get(j).getNType() != NodeType.PARAM && n.getChildren().get(j).getPath().charAt(0) == c) {
-                            n = n.getChildren().get(j);
-                            continue walk;
-                        }
+                    Node next = n.staticChild(c);
+                    if (next != null) {
+                        n = next;
+                        continue walk;
                     }
 
                     Node child = new Node();
                     child.setParent(n);
+                    child.hits = n.newCounter();
                     n.addChild(child);
                     n = child;
-                } else if (n.isWildChild() && path.startsWith("{id}/")) {
-                    // 这里的if需要新增一些条件，不是所有{开头的字符串都是路径参数，万一没有}呢
-                    // 由于一些原因，把所有的路径参数都认为是{id}
+                } else if (n.isWildChild()) {
+                    // 同一个位置只能有一个路径参数子节点，名字和类型都必须和已有的一致
                     n = n.getChildren().get(n.children.size() - 1);
 
                     // 这里gin要求传入的路径参数必须字符串一致，我看不明白但是我大受震撼
@@ -217,11 +482,14 @@ public class Node {
                     throw new Exception(String.format("'%s' in new path '%s' conflicts with existing wildcard '%s' in existing prefix '%s'", pathSeg, fullPath, n.path, prefix));
                 }
 
-                n.insertChild(path, fullPath, assetId);
+                n.insertChild(path, fullPath, assetId, handlers);
                 return;
             }
 
             n.setAssetId(assetId);
+            if (!keepHandlers) {
+                n.setHandlers(handlers);
+            }
             return;
         }
     }
@@ -249,7 +517,7 @@ public class Node {
                     }
                 }
 
-                return n;
+                return hit(n);
             } else if (n.getNType() == NodeType.PARAM) {
                 prefix = path.substring(0, path.indexOf("/") + 1);
                 path = path.substring(path.indexOf("/") + 1);
@@ -274,22 +542,25 @@ public class Node {
 
             // 先检查一下子节点有没有静态url能匹配的
             char idxc = path.charAt(0);
-            for (int i = 0; i < n.getChildren().size(); i++) {
-                if (n.getChildren().get(i).getNType() != NodeType.PARAM && n.getChildren().get(i).getPath().charAt(0) == idxc) {
-                    if (n.isWildChild()) {
-                        skippedNodes.add(new SkippedNode(prefix + path, new Node(n.getPath(), n.getNType(), null, n.getChildren().subList(n.getChildren().size() - 1, n.getChildren().size()), n.getAssetId()), 0));
-                    }
-
-                    n = n.getChildren().get(i);
-                    continue walk;
+            Node next = n.staticChild(idxc);
+            if (next != null) {
+                if (n.acceptsWild(path, 0)) {
+                    Node copy = new Node(n.getPath(), n.getNType(), null, n.getChildren().subList(n.getChildren().size() - 1, n.getChildren().size()), n.getAssetId());
+                    copy.hits = n.hits;
+                    copy.handlers = n.handlers;
+                    skippedNodes.add(new SkippedNode(prefix + path, copy, 0));
                 }
+
+                n = next;
+                continue walk;
             }
 
             // 发现该节点下没有静态节点能继续匹配了，现在有两种选择
             // 1. 要么当前节点的子节点有路径参数节点，可以继续匹配路径参数
             // 2. 如果当前节点的子节点没有路径参数节点了，就直接回溯到上一个路径参数节点
+            // 路径参数子节点的类型限制不满足时，等同于没有路径参数子节点
 
-            if (!n.isWildChild()) {
+            if (!n.acceptsWild(path, 0)) {
                 // 如果当前节点的子节点没有路径参数节点了，就直接回溯到上一个路径参数节点
                 for (int length = skippedNodes.size(); length > 0; length--) {
                     SkippedNode skippedNode = skippedNodes.get(length - 1);
@@ -315,12 +586,356 @@ public class Node {
                 continue walk;
             }
 
-            return n;
+            return hit(n);
+        }
+    }
+
+    /**
+     * 使用当前线程复用的回溯栈查询，见{@link #getValue(String, SkippedNodeStack)}
+     *
+     * @param path
+     * @return
+     */
+    public Node lookup(String path) {
+        if (LookupMetrics.enabled) {
+            return LookupMetrics.lookup(this, path, null);
+        }
+        return getValue(path, SkippedNodeStack.local());
+    }
+
+    /**
+     * 使用当前线程复用的回溯栈查询并记录路径参数，见{@link #getValue(String, SkippedNodeStack, Params)}
+     *
+     * @param path
+     * @param params
+     * @return
+     */
+    public Node lookup(String path, Params params) {
+        if (LookupMetrics.enabled) {
+            return LookupMetrics.lookup(this, path, params);
+        }
+        return getValue(path, SkippedNodeStack.local(), params);
+    }
+
+    /**
+     * 与{@link #getValue(String, List)}的匹配逻辑和结果完全一致，区别在于：
+     * 1. 不截取url，而是用offset记录剩余url在原始url中的下标
+     * 2. 回溯时不创建SkippedNode和节点副本，只把节点和offset压入可复用的栈，恢复后只允许继续匹配路径参数子节点
+     * 因此无论是否匹配成功，整个查询过程都不会分配内存
+     *
+     * @param path
+     * @param skippedNodes 会先被清空
+     * @return
+     */
+    public Node getValue(String path, SkippedNodeStack skippedNodes) {
+        return getValue(path, skippedNodes, null);
+    }
+
+    /**
+     * 同{@link #getValue(String, SkippedNodeStack)}，同时把匹配到的路径参数记录到params中，回溯时丢弃被跳过部分的参数
+     *
+     * @param path
+     * @param skippedNodes 会先被清空
+     * @param params       会先被清空，为null时不记录
+     * @return
+     */
+    public Node getValue(String path, SkippedNodeStack skippedNodes, Params params) {
+        return getValue(path, skippedNodes, params, false);
+    }
+
+    /**
+     * 同{@link #getValue(String, SkippedNodeStack, Params)}，但是没有匹配到资产、并且回溯栈已经空了时返回null，而不是最后停留的节点
+     * 也就是如果这棵树是更大的树的一部分，查询还会回溯到这棵树之外；
+     * 最后一段匹配到没有资产的路径参数节点时不会回溯，仍然返回这个节点
+     *
+     * @param path
+     * @param skippedNodes
+     * @param params
+     * @return
+     */
+    Node match(String path, SkippedNodeStack skippedNodes, Params params) {
+        return getValue(path, skippedNodes, params, true);
+    }
+
+    private Node getValue(String path, SkippedNodeStack skippedNodes, Params params, boolean exact) {
+        skippedNodes.clear();
+        if (params != null) {
+            params.reset(path);
+        }
+
+        Node n = this;
+        int offset = 0;
+        int length = path.length();
+        // 从回溯栈恢复的节点，相当于原来只保留了路径参数子节点的副本
+        boolean wildOnly = false;
+        // 没有开启统计时不更新计数器
+        boolean counting = skippedNodes.counting;
+
+        walk:
+        while (true) {
+            if (counting) {
+                skippedNodes.visited++;
+            }
+            // 当前节点开始匹配的位置，相当于原来的prefix + path
+            int start = offset;
+            String nPath = n.path;
+            // 进入当前节点之前的参数数量，当前节点被压栈时用于回溯
+            int paramsCount = 0;
+            if (params != null) {
+                paramsCount = params.size();
+                if (n.nType == NodeType.PARAM) {
+                    int end = path.indexOf('/', offset);
+                    params.add(n, offset, end < 0 ? length : end);
+                }
+            }
+
+            if (length - offset == nPath.length() && path.startsWith(nPath, offset)) {
+                if (n.assetId == null) {
+                    // 发现这个节点并不是资产，就需要回溯到上一个路径参数
+                    int i = skippedNodes.pop(offset);
+                    if (i >= 0) {
+                        if (params != null) {
+                            params.truncate(skippedNodes.paramsCountAt(i));
+                        }
+                        offset = skippedNodes.offsetAt(i);
+                        n = skippedNodes.nodeAt(i);
+                        wildOnly = true;
+                        continue walk;
+                    }
+                }
+
+                return exact && n.assetId == null ? null : hit(n, skippedNodes);
+            } else if (n.nType == NodeType.PARAM) {
+                int end = path.indexOf('/', offset);
+                if (end >= 0) {
+                    offset = end + 1;
+                }
+            } else if (length - offset > nPath.length() && path.startsWith(nPath, offset)) {
+                offset += nPath.length();
+            } else {
+                int i = skippedNodes.pop(offset);
+                if (i >= 0) {
+                    if (params != null) {
+                        params.truncate(skippedNodes.paramsCountAt(i));
+                    }
+                    offset = skippedNodes.offsetAt(i);
+                    n = skippedNodes.nodeAt(i);
+                    wildOnly = true;
+                    continue walk;
+                }
+
+                return exact ? null : n;
+            }
+
+            // 先检查一下子节点有没有静态url能匹配的
+            char idxc = path.charAt(offset);
+            if (!wildOnly) {
+                Node child = n.staticChild(idxc);
+                if (child != null) {
+                    if (n.acceptsWild(path, offset)) {
+                        skippedNodes.push(n, start, paramsCount);
+                    }
+
+                    n = child;
+                    continue walk;
+                }
+            }
+            wildOnly = false;
+
+            if (!n.acceptsWild(path, offset)) {
+                // 如果当前节点的子节点没有路径参数节点了，或者不满足类型限制，就直接回溯到上一个路径参数节点
+                int i = skippedNodes.pop(offset);
+                if (i >= 0) {
+                    if (params != null) {
+                        params.truncate(skippedNodes.paramsCountAt(i));
+                    }
+                    offset = skippedNodes.offsetAt(i);
+                    n = skippedNodes.nodeAt(i);
+                    wildOnly = true;
+                    continue walk;
+                }
+
+                return exact ? null : n;
+            }
+
+            n = n.children.get(n.children.size() - 1);
+            // 不考虑不存在/的情况
+            int end = path.indexOf('/', offset);
+            int rest = end < 0 ? 0 : end - offset + 1;
+            if (rest < length - offset) {
+                // 在路径参数之后还有path需要匹配
+                continue walk;
+            }
+
+            if (params != null) {
+                params.add(n, offset, end < 0 ? length : end);
+            }
+            return hit(n, skippedNodes);
         }
     }
 
+    /**
+     * 使用当前线程复用的回溯栈查询UTF-8编码的url，见{@link #getValue(byte[], int, int, SkippedNodeStack)}
+     *
+     * @param path
+     * @param from
+     * @param to
+     * @return
+     */
+    public Node lookup(byte[] path, int from, int to) {
+        if (LookupMetrics.enabled) {
+            return LookupMetrics.lookup(this, path, from, to);
+        }
+        return getValue(path, from, to, SkippedNodeStack.local());
+    }
+
+    /**
+     * 使用当前线程复用的回溯栈查询ByteBuffer中[position, limit)的url，不会修改position
+     *
+     * @param path
+     * @return
+     */
+    public Node lookup(ByteBuffer path) {
+        if (LookupMetrics.enabled) {
+            return LookupMetrics.lookup(this, path);
+        }
+        return getValue(path, SkippedNodeStack.local());
+    }
+
+    /**
+     * 直接匹配UTF-8(或ASCII)编码的url，不需要先解码成String，结果与{@link #getValue(String, SkippedNodeStack)}一致
+     *
+     * @param path
+     * @param from url在数组中的起始位置
+     * @param to   url在数组中的结束位置(不包含)
+     * @param skippedNodes
+     * @return
+     */
+    public Node getValue(byte[] path, int from, int to, SkippedNodeStack skippedNodes) {
+        return getValue(skippedNodes.wrap(path, from, to), skippedNodes);
+    }
+
+    public Node getValue(ByteBuffer path, SkippedNodeStack skippedNodes) {
+        return getValue(skippedNodes.wrap(path), skippedNodes);
+    }
+
+    /**
+     * 与{@link #getValue(String, SkippedNodeStack)}相同的匹配逻辑，只是比较的是节点path的UTF-8编码
+     * offset是字节下标
+     */
+    private Node getValue(PathBytes path, SkippedNodeStack skippedNodes) {
+        skippedNodes.clear();
+
+        Node n = this;
+        int offset = 0;
+        int length = path.length();
+        boolean wildOnly = false;
+        boolean counting = skippedNodes.counting;
+
+        walk:
+        while (true) {
+            if (counting) {
+                skippedNodes.visited++;
+            }
+            int start = offset;
+            byte[] nPath = n.pathBytes;
+
+            if (length - offset == nPath.length && path.longestCommonPrefix(offset, nPath) == nPath.length) {
+                if (n.assetId == null) {
+                    int i = skippedNodes.pop(offset);
+                    if (i >= 0) {
+                        offset = skippedNodes.offsetAt(i);
+                        n = skippedNodes.nodeAt(i);
+                        wildOnly = true;
+                        continue walk;
+                    }
+                }
+
+                return hit(n, skippedNodes);
+            } else if (n.nType == NodeType.PARAM) {
+                int end = path.indexOf((byte) '/', offset);
+                if (end >= 0) {
+                    offset = end + 1;
+                }
+            } else if (length - offset > nPath.length && path.longestCommonPrefix(offset, nPath) == nPath.length) {
+                offset += nPath.length;
+            } else {
+                int i = skippedNodes.pop(offset);
+                if (i >= 0) {
+                    offset = skippedNodes.offsetAt(i);
+                    n = skippedNodes.nodeAt(i);
+                    wildOnly = true;
+                    continue walk;
+                }
+
+                return n;
+            }
+
+            if (offset >= length) {
+                throw new StringIndexOutOfBoundsException(offset);
+            }
+            if (!wildOnly) {
+                Node next = null;
+                byte lead = path.get(offset);
+                if (lead >= 0) {
+                    next = n.staticChild((char) lead);
+                } else {
+                    for (int i = 0; i < n.children.size(); i++) {
+                        Node child = n.children.get(i);
+                        // 比较的是首字母的完整编码，多字节字符的首字节可能相同
+                        if (child.nType != NodeType.PARAM && path.startsWithChar(offset, child.pathBytes)) {
+                            next = child;
+                            break;
+                        }
+                    }
+                }
+
+                if (next != null) {
+                    if (n.acceptsWild(path, offset)) {
+                        skippedNodes.push(n, start);
+                    }
+
+                    n = next;
+                    continue walk;
+                }
+            }
+            wildOnly = false;
+
+            if (!n.acceptsWild(path, offset)) {
+                int i = skippedNodes.pop(offset);
+                if (i >= 0) {
+                    offset = skippedNodes.offsetAt(i);
+                    n = skippedNodes.nodeAt(i);
+                    wildOnly = true;
+                    continue walk;
+                }
+
+                return n;
+            }
+
+            n = n.children.get(n.children.size() - 1);
+            int end = path.indexOf((byte) '/', offset);
+            int rest = end < 0 ? 0 : end - offset + 1;
+            if (rest < length - offset) {
+                continue walk;
+            }
+
+            return hit(n, skippedNodes);
+        }
+    }
+
+    /**
+     * 把当前的树编译成只读的{@link FrozenTree}，之后对当前树的修改不会影响生成的FrozenTree
+     *
+     * @return
+     */
+    public FrozenTree freeze() {
+        return FrozenTree.of(this);
+    }
+
     /**
      * 这个传入的是数据库中的uri，因此不用考虑路径参数带来的影响，直接用path匹配即可，也有可能返回null
+     * 顺便设置经过节点的parent，remove和cut只会沿着这条路径向上，因此没有parent的树(见{@link TreeCompactor})也可以删除
      *
      * @param path
      * @return
@@ -338,6 +953,7 @@ public class Node {
                 path = path.substring(n.getPath().length());
                 for (Node child : n.getChildren()) {
                     if (path.startsWith(child.getPath())) {
+                        child.setParent(n);
                         n = child;
                         continue walk;
                     }
@@ -348,6 +964,80 @@ public class Node {
         }
     }
 
+    /**
+     * 复制从当前节点开始、沿着path向下匹配可能经过的所有节点，其余子树直接共享
+     * addRoute和remove只会修改这些节点(以及它们的children列表)，因此在副本上修改不会影响当前这棵树
+     * 由于addRoute按首字母找子节点，remove按前缀找子节点，两种情况会走到的子节点都要复制
+     * 注意共享子树的parent可能会在修改时被指向副本，但查询不会用到parent
+     *
+     * @param path 要新增或删除的url
+     * @return 复制出来的新根节点
+     */
+    Node copyPath(String path) {
+        return copyPaths(Collections.singletonList(path));
+    }
+
+    /**
+     * 同{@link #copyPath(String)}，一次复制多个url可能经过的节点，每个节点只复制一次
+     *
+     * @param paths
+     * @return 复制出来的新根节点
+     */
+    Node copyPaths(Collection<String> paths) {
+        Node root = new Node(this.path, this.nType, null, new ArrayList<>(this.children), this.assetId);
+        root.hits = this.hits;
+        root.handlers = this.handlers;
+
+        Set<Node> copies = Collections.newSetFromMap(new IdentityHashMap<>());
+        copies.add(root);
+        for (String path : paths) {
+            copyPath(root, path, copies);
+        }
+
+        return root;
+    }
+
+    private static void copyPath(Node root, String path, Set<Node> copies) {
+        Deque<Node> nodes = new ArrayDeque<>();
+        Deque<String> paths = new ArrayDeque<>();
+        nodes.push(root);
+        paths.push(path);
+
+        while (!nodes.isEmpty()) {
+            Node n = nodes.pop();
+            String rest = paths.pop();
+
+            int i = TreeUtil.longestCommonPrefix(rest, n.getPath());
+            if (i < n.getPath().length() || i == rest.length()) {
+                continue;
+            }
+
+            rest = rest.substring(i);
+            for (int j = 0; j < n.getChildren().size(); j++) {
+                Node child = n.getChildren().get(j);
+                boolean touched = rest.startsWith(child.getPath())
+                        || (child.getNType() != NodeType.PARAM && !child.getPath().isEmpty() && child.getPath().charAt(0) == rest.charAt(0));
+                if (!touched) {
+                    continue;
+                }
+
+                if (copies.contains(child)) {
+                    nodes.push(child);
+                    paths.push(rest);
+                    continue;
+                }
+
+                Node copy = new Node(child.path, child.nType, n, new ArrayList<>(child.children), child.assetId);
+                copy.hits = child.hits;
+                copy.handlers = child.handlers;
+                n.getChildren().set(j, copy);
+                copies.add(copy);
+                nodes.push(copy);
+                paths.push(rest);
+            }
+        }
+    }
+
     public void remove(String path) {
         Node node = getValue(path);
         if (node == null) {
@@ -362,6 +1052,10 @@ public class Node {
     private void remove() {
         // 先清除自身节点的资产属性
         this.setAssetId(null);
+        this.setHandlers(null);
+        if (this.hits != null) {
+            this.hits.reset();
+        }
 
         if (this.getNType() == NodeType.ROOT) {
             return;
@@ -372,6 +1066,7 @@ public class Node {
         // 如果没有子节点，这个节点直接移除即可
         if (this.getChildren().isEmpty()) {
             this.getParent().getChildren().removeIf(node -> node.getPath().equals(this.getPath()));
+            this.getParent().reindex();
             // 需要考虑剪枝，避免出现父节点不是资产，且没有子节点或一个非路径参数子节点的情况
             this.getParent().cut();
             return;
@@ -388,11 +1083,7 @@ public class Node {
                 return;
             }
 
-            Node child = this.getChildren().get(0);
-            this.setPath(this.path + child.getPath());
-            child.getChildren().forEach(node -> node.setParent(this));
-            this.setChildren(child.getChildren());
-            this.setAssetId(child.getAssetId());
+            this.absorb(this.getChildren().get(0));
         }
 
         // 如果有多个子节点 保持不变
@@ -419,6 +1110,7 @@ public class Node {
 
                 String path = n.getPath();
                 n.getParent().getChildren().removeIf(node -> node.getPath().equals(path));
+                n.getParent().reindex();
                 n = n.getParent();
                 continue walk;
             }
@@ -445,18 +1137,102 @@ public class Node {
                     return;
                 }
 
-                Node child = n.getChildren().get(0);
+                n.absorb(n.getChildren().get(0));
+                return;
+            }
 
-                n.setPath(n.path + child.getPath());
-                for (Node childChild : child.getChildren()) {
-                    childChild.setParent(n);
-                }
-                n.setChildren(child.getChildren());
-                n.setAssetId(child.getAssetId());
+            return;
+        }
+    }
+
+    /**
+     * 把唯一的子节点合并到当前节点
+     */
+    private void absorb(Node child) {
+        this.setPath(this.path + child.getPath());
+        this.reindexParent();
+        for (Node childChild : child.getChildren()) {
+            childChild.setParent(this);
+        }
+        this.setChildren(child.getChildren());
+        this.setAssetId(child.getAssetId());
+        this.setHandlers(child.getHandlers());
+        this.hits = child.hits;
+    }
+
+    /**
+     * 批量应用变更，结果与依次调用addRoute和remove相同，区别在于：
+     * 1. 先新增和修改，再清除所有要删除的资产
+     * 2. 最后只对被删除的节点及其祖先按深度从深到浅剪枝一次，每个节点最多被处理一次，不会反复合并
+     * 耗时只与变更数量和深度有关，与树的大小无关
+     * Not concurrency-safe! 需要加锁；需要并发查询时使用{@link ConcurrentRouter#apply(RouteDiff)}
+     *
+     * @param diff
+     */
+    public void apply(RouteDiff diff) {
+        for (NodeValue route : diff.getAdded()) {
+            addRoute(route.getFullPath(), route.getAssetId());
+        }
+        for (NodeValue route : diff.getChanged()) {
+            addRoute(route.getFullPath(), route.getAssetId());
+        }
+
+        // 需要剪枝的节点和深度，根节点和remove一样，只有作为祖先时才剪枝
+        Map<Node, Integer> depths = new IdentityHashMap<>();
+        for (String path : diff.getRemoved()) {
+            Node node = getValue(path);
+            if (node == null) {
+                continue;
+            }
+
+            node.setAssetId(null);
+            node.setHandlers(null);
+            if (node.hits != null) {
+                node.hits.reset();
+            }
+
+            int depth = 0;
+            for (Node p = node; p != this; p = p.parent) {
+                depth++;
+            }
+            for (Node p = node; p != this && !depths.containsKey(p); p = p.parent, depth--) {
+                depths.put(p, depth);
+            }
+            if (node != this) {
+                depths.put(this, 0);
+            }
+        }
+
+        List<Node> nodes = new ArrayList<>(depths.keySet());
+        nodes.sort((a, b) -> Integer.compare(depths.get(b), depths.get(a)));
+        for (Node n : nodes) {
+            n.prune();
+        }
+    }
+
+    /**
+     * 和cut的规则一样，只是不再向上处理，祖先节点由{@link #apply(RouteDiff)}按深度依次处理
+     */
+    private void prune() {
+        if (this.assetId != null) {
+            return;
+        }
+
+        if (this.children.isEmpty()) {
+            if (this.nType == NodeType.ROOT) {
+                this.setPath("");
                 return;
             }
 
+            this.parent.getChildren().removeIf(node -> node == this);
+            this.parent.reindex();
             return;
         }
+
+        if (this.nType == NodeType.PARAM || this.children.size() > 1 || this.children.get(0).nType == NodeType.PARAM) {
+            return;
+        }
+
+        this.absorb(this.children.get(0));
     }
 }
@@ -0,0 +1,194 @@
+package com.gin;
+
+/**
+ * 路径参数的类型限制，写法是{name:type}/，没有type的路径参数可以匹配任意一段url，不需要ParamMatcher
+ * 支持的type：
+ * 1. int：一个或多个十进制数字
+ * 2. hex：一个或多个十六进制数字
+ * 3. uuid：8-4-4-4-12格式的十六进制数字
+ * 4. len(min,max)或len(n)：字符数量在[min, max]之间
+ * 查询进入路径参数节点之前先检查这一段url，不满足时直接放弃这个分支，不需要继续向下匹配
+ */
+public final class ParamMatcher {
+    private static final int INT = 0;
+    private static final int HEX = 1;
+    private static final int UUID = 2;
+    private static final int LENGTH = 3;
+
+    private final int type;
+    private final int min;
+    private final int max;
+    private final String text;
+
+    private ParamMatcher(int type, int min, int max, String text) {
+        this.type = type;
+        this.min = min;
+        this.max = max;
+        this.text = text;
+    }
+
+    /**
+     * @param wildcard 例如{id:int}/
+     * @return 没有类型限制时返回null
+     * @throws IllegalArgumentException 不支持的类型
+     */
+    public static ParamMatcher parse(String wildcard) {
+        int close = wildcard.lastIndexOf('}');
+        int colon = wildcard.indexOf(':');
+        if (colon < 0 || colon > close) {
+            return null;
+        }
+
+        String type = wildcard.substring(colon + 1, close);
+        switch (type) {
+            case "int":
+                return new ParamMatcher(INT, 1, Integer.MAX_VALUE, type);
+            case "hex":
+                return new ParamMatcher(HEX, 1, Integer.MAX_VALUE, type);
+            case "uuid":
+                return new ParamMatcher(UUID, 36, 36, type);
+            default:
+                break;
+        }
+
+        if (type.startsWith("len(") && type.endsWith(")")) {
+            String[] bounds = type.substring(4, type.length() - 1).split(",", -1);
+            try {
+                int min = Integer.parseInt(bounds[0].trim());
+                int max = bounds.length > 1 ? Integer.parseInt(bounds[1].trim()) : min;
+                if (bounds.length <= 2 && min >= 0 && min <= max) {
+                    return new ParamMatcher(LENGTH, min, max, type);
+                }
+            } catch (NumberFormatException e) {
+                // 下面统一抛出异常
+            }
+        }
+
+        throw new IllegalArgumentException(String.format("unsupported parameter type '%s' in wildcard '%s'", type, wildcard));
+    }
+
+    /**
+     * 节点path不是合法的带类型的路径参数时返回null，不会抛出异常
+     *
+     * @param path
+     * @return
+     */
+    static ParamMatcher of(String path) {
+        if (path.length() < 4 || path.charAt(0) != '{' || !path.endsWith("}/")) {
+            return null;
+        }
+
+        try {
+            return parse(path);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param path
+     * @param from 这一段url的开始下标
+     * @param to   这一段url的结束下标，不包括/
+     * @return
+     */
+    public boolean matches(String path, int from, int to) {
+        int length = to - from;
+        switch (type) {
+            case INT:
+                if (length < 1) {
+                    return false;
+                }
+                for (int i = from; i < to; i++) {
+                    char c = path.charAt(i);
+                    if (c < '0' || c > '9') {
+                        return false;
+                    }
+                }
+                return true;
+            case HEX:
+                if (length < 1) {
+                    return false;
+                }
+                for (int i = from; i < to; i++) {
+                    if (!isHex(path.charAt(i))) {
+                        return false;
+                    }
+                }
+                return true;
+            case UUID:
+                if (length != 36) {
+                    return false;
+                }
+                for (int i = 0; i < 36; i++) {
+                    char c = path.charAt(from + i);
+                    if (i == 8 || i == 13 || i == 18 || i == 23 ? c != '-' : !isHex(c)) {
+                        return false;
+                    }
+                }
+                return true;
+            default:
+                // 按码点计算长度
+                int count = Character.codePointCount(path, from, to);
+                return count >= min && count <= max;
+        }
+    }
+
+    /**
+     * UTF-8编码的url，见{@link #matches(String, int, int)}
+     */
+    boolean matches(PathBytes path, int from, int to) {
+        int length = to - from;
+        switch (type) {
+            case INT:
+                if (length < 1) {
+                    return false;
+                }
+                for (int i = from; i < to; i++) {
+                    byte b = path.get(i);
+                    if (b < '0' || b > '9') {
+                        return false;
+                    }
+                }
+                return true;
+            case HEX:
+                if (length < 1) {
+                    return false;
+                }
+                for (int i = from; i < to; i++) {
+                    if (!isHex((char) path.get(i))) {
+                        return false;
+                    }
+                }
+                return true;
+            case UUID:
+                if (length != 36) {
+                    return false;
+                }
+                for (int i = 0; i < 36; i++) {
+                    byte b = path.get(from + i);
+                    if (i == 8 || i == 13 || i == 18 || i == 23 ? b != '-' : !isHex((char) b)) {
+                        return false;
+                    }
+                }
+                return true;
+            default:
+                // 不是后续字节的都是一个字符的开始
+                int count = 0;
+                for (int i = from; i < to; i++) {
+                    if ((path.get(i) & 0xC0) != 0x80) {
+                        count++;
+                    }
+                }
+                return count >= min && count <= max;
+        }
+    }
+
+    private static boolean isHex(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
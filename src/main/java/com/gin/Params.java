@@ -1,17 +1,54 @@
 package com.gin;
 
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
+/**
+ * 除了手动构造的params列表，还可以传给{@link Node#getValue(String, SkippedNodeStack, Params)}复用，
+ * 查询时只记录路径参数节点和参数值在url中的起止下标，读取时才创建String
+ */
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 public class Params {
     private List<Param> params;
 
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private String path;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Node[] nodes = new Node[4];
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private int[] bounds = new int[8];
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private int size;
+
+    public Params(List<Param> params) {
+        this.params = params;
+    }
+
     /**
      * Get returns the value of the first Param which key matches the given name and a boolean true.
      * If no matching Param is found, an empty string is returned and a boolean false .
@@ -31,7 +68,22 @@ public class Params {
      * @return
      */
     public String get(String name) {
-        return params.stream().filter(param -> param.getKey().equals(name)).findFirst().map(Param::getValue).orElse("");
+        if (params != null) {
+            for (int i = 0; i < params.size(); i++) {
+                if (params.get(i).getKey().equals(name)) {
+                    return params.get(i).getValue();
+                }
+            }
+        }
+
+        for (int i = 0; i < size; i++) {
+            // 节点的path是{name}/或者{name:type}/，不需要截取就能比较
+            String nPath = nodes[i].getPath();
+            if (nPath.length() > name.length() + 1 && isNameEnd(nPath.charAt(name.length() + 1)) && nPath.startsWith(name, 1)) {
+                return value(i);
+            }
+        }
+        return "";
     }
 
     /**
@@ -51,4 +103,76 @@ public class Params {
     public String byName(String name) {
         return get(name);
     }
+
+    /**
+     * @return 查询时记录的参数数量
+     */
+    public int size() {
+        return size;
+    }
+
+    public String key(int i) {
+        // 节点的path是{name}/或者{name:type}/
+        String nPath = nodes[i].getPath();
+        int end = 1;
+        while (end < nPath.length() && !isNameEnd(nPath.charAt(end))) {
+            end++;
+        }
+        return nPath.substring(1, end);
+    }
+
+    private static boolean isNameEnd(char c) {
+        return c == '}' || c == ':';
+    }
+
+    public String value(int i) {
+        return path.substring(bounds[i << 1], bounds[(i << 1) + 1]);
+    }
+
+    public int valueStart(int i) {
+        return bounds[i << 1];
+    }
+
+    public int valueEnd(int i) {
+        return bounds[(i << 1) + 1];
+    }
+
+    /**
+     * @return 把查询时记录的参数转换成Param列表
+     */
+    public List<Param> toList() {
+        List<Param> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(new Param(key(i), value(i)));
+        }
+        return list;
+    }
+
+    void reset(String path) {
+        Arrays.fill(nodes, 0, size, null);
+        this.path = path;
+        this.size = 0;
+    }
+
+    void add(Node node, int start, int end) {
+        if (size == nodes.length) {
+            nodes = Arrays.copyOf(nodes, size << 1);
+            bounds = Arrays.copyOf(bounds, size << 2);
+        }
+
+        nodes[size] = node;
+        bounds[size << 1] = start;
+        bounds[(size << 1) + 1] = end;
+        size++;
+    }
+
+    /**
+     * 回溯时丢弃被跳过节点之后记录的参数，相当于gin的(*value.params)[:skippedNode.paramsCount]
+     *
+     * @param count
+     */
+    void truncate(int count) {
+        Arrays.fill(nodes, count, size, null);
+        size = count;
+    }
 }
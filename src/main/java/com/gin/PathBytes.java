@@ -0,0 +1,119 @@
+package com.gin;
+
+import com.gin.util.TreeUtil;
+
+import java.nio.ByteBuffer;
+
+/**
+ * byte[]或ByteBuffer中一段UTF-8编码的url，下标从0开始
+ * 实例保存在{@link SkippedNodeStack}中复用，查询时不会复制和解码url
+ */
+abstract class PathBytes {
+    abstract int length();
+
+    abstract byte get(int i);
+
+    /**
+     * 从offset开始，与b的最长公共前缀
+     */
+    abstract int longestCommonPrefix(int offset, byte[] b);
+
+    int indexOf(byte b, int from) {
+        for (int i = from; i < length(); i++) {
+            if (get(i) == b) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * offset处的字符是否与label的首字母相同，比较的是首字母的完整UTF-8编码
+     */
+    boolean startsWithChar(int offset, byte[] label) {
+        if (label.length == 0) {
+            return false;
+        }
+
+        int n = TreeUtil.utf8Length(label[0]);
+        if (n > label.length || n > length() - offset) {
+            return false;
+        }
+
+        for (int i = 0; i < n; i++) {
+            if (get(offset + i) != label[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    static class ArrayPathBytes extends PathBytes {
+        private byte[] array;
+        private int from;
+        private int to;
+
+        ArrayPathBytes reset(byte[] array, int from, int to) {
+            this.array = array;
+            this.from = from;
+            this.to = to;
+            return this;
+        }
+
+        @Override
+        int length() {
+            return to - from;
+        }
+
+        @Override
+        byte get(int i) {
+            return array[from + i];
+        }
+
+        @Override
+        int longestCommonPrefix(int offset, byte[] b) {
+            return TreeUtil.longestCommonPrefix(array, from + offset, to, b, 0, b.length);
+        }
+
+        @Override
+        int indexOf(byte b, int offset) {
+            for (int i = from + offset; i < to; i++) {
+                if (array[i] == b) {
+                    return i - from;
+                }
+            }
+
+            return -1;
+        }
+    }
+
+    static class BufferPathBytes extends PathBytes {
+        private ByteBuffer buffer;
+        private int from;
+        private int to;
+
+        BufferPathBytes reset(ByteBuffer buffer) {
+            this.buffer = buffer;
+            this.from = buffer.position();
+            this.to = buffer.limit();
+            return this;
+        }
+
+        @Override
+        int length() {
+            return to - from;
+        }
+
+        @Override
+        byte get(int i) {
+            return buffer.get(from + i);
+        }
+
+        @Override
+        int longestCommonPrefix(int offset, byte[] b) {
+            return TreeUtil.longestCommonPrefix(buffer, from + offset, to, b, 0, b.length);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.gin;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 一批路由变更，通过{@link Node#apply(RouteDiff)}或{@link ConcurrentRouter#apply(RouteDiff)}一次性应用
+ * 可以直接构造变更列表，也可以通过{@link #of(Node, Collection)}和期望的完整路由集合比较得到
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RouteDiff {
+    private List<NodeValue> added = new ArrayList<>();
+    /**
+     * url已经存在，只修改资产ID
+     */
+    private List<NodeValue> changed = new ArrayList<>();
+    private List<String> removed = new ArrayList<>();
+
+    /**
+     * @param root
+     * @param routes 期望的完整路由集合，url重复时取最后一个资产ID
+     * @return
+     */
+    public static RouteDiff of(Node root, Collection<NodeValue> routes) {
+        Map<String, String> desired = new LinkedHashMap<>();
+        for (NodeValue route : routes) {
+            desired.put(route.getFullPath(), route.getAssetId());
+        }
+        Map<String, String> current = routes(root);
+
+        RouteDiff diff = new RouteDiff();
+        for (Map.Entry<String, String> route : desired.entrySet()) {
+            if (!current.containsKey(route.getKey())) {
+                diff.added.add(new NodeValue(route.getKey(), route.getValue()));
+            } else if (!Objects.equals(current.get(route.getKey()), route.getValue())) {
+                diff.changed.add(new NodeValue(route.getKey(), route.getValue()));
+            }
+        }
+        for (String path : current.keySet()) {
+            if (!desired.containsKey(path)) {
+                diff.removed.add(path);
+            }
+        }
+
+        return diff;
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && changed.isEmpty() && removed.isEmpty();
+    }
+
+    public int size() {
+        return added.size() + changed.size() + removed.size();
+    }
+
+    /**
+     * 所有要修改的url
+     *
+     * @return
+     */
+    List<String> paths() {
+        List<String> paths = new ArrayList<>(size());
+        added.forEach(route -> paths.add(route.getFullPath()));
+        changed.forEach(route -> paths.add(route.getFullPath()));
+        paths.addAll(removed);
+        return paths;
+    }
+
+    /**
+     * 树中所有的url和资产ID
+     */
+    private static Map<String, String> routes(Node root) {
+        Map<String, String> routes = new HashMap<>();
+        Deque<Node> nodes = new ArrayDeque<>();
+        Deque<String> prefixes = new ArrayDeque<>();
+        nodes.push(root);
+        prefixes.push("");
+
+        while (!nodes.isEmpty()) {
+            Node n = nodes.pop();
+            String fullPath = prefixes.pop() + n.getPath();
+            if (n.getAssetId() != null) {
+                routes.put(fullPath, n.getAssetId());
+            }
+
+            for (Node child : n.getChildren()) {
+                nodes.push(child);
+                prefixes.push(fullPath);
+            }
+        }
+
+        return routes;
+    }
+}
@@ -0,0 +1,14 @@
+package com.gin;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RouteHits {
+    private String fullPath;
+    private String assetId;
+    private long hits;
+}
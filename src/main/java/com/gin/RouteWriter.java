@@ -0,0 +1,180 @@
+package com.gin;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@link ConcurrentRouter}的单线程写入队列
+ * 任意线程调用{@link #addRoute(String, String)}和{@link #remove(String)}只是把变更放进无锁队列，由一个专门的写线程批量取出：
+ * 1. 同一个url在一批中只保留最后一次变更
+ * 2. 整批变更合并成一个{@link RouteDiff}，通过{@link ConcurrentRouter#apply(RouteDiff)}只复制一次路径、只剪枝一次、只发布一个新版本
+ * 3. 新版本发布之后再完成这一批中所有变更的future，被合并掉的变更也一样
+ * 一批中有变更失败(例如路径参数冲突)时，已发布的树不受影响，这一批退回到逐个应用，只有失败的变更的future异常结束
+ */
+public class RouteWriter implements AutoCloseable {
+    /**
+     * 每一批最多取出的变更数量
+     */
+    private static final int MAX_BATCH = 4096;
+
+    private final ConcurrentRouter router;
+    private final ConcurrentLinkedQueue<Mutation> queue = new ConcurrentLinkedQueue<>();
+    /**
+     * 写线程没有变更可处理、准备park时为true，生产者看到true才需要unpark
+     */
+    private final AtomicBoolean idle = new AtomicBoolean(false);
+    private final Thread writer;
+    private volatile boolean closed;
+    /**
+     * 写线程退出前设置，之后队列中剩下的变更都直接失败
+     */
+    private volatile boolean terminated;
+
+    public RouteWriter(ConcurrentRouter router) {
+        this.router = router;
+        this.writer = new Thread(this::run, "route-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public ConcurrentRouter getRouter() {
+        return router;
+    }
+
+    public CompletableFuture<Void> addRoute(String path) {
+        return addRoute(path, "api." + path);
+    }
+
+    /**
+     * @param path
+     * @param assetId
+     * @return 包含这次变更的版本发布之后完成
+     */
+    public CompletableFuture<Void> addRoute(String path, String assetId) {
+        return submit(new Mutation(path, assetId, false));
+    }
+
+    public CompletableFuture<Void> remove(String path) {
+        return submit(new Mutation(path, null, true));
+    }
+
+    /**
+     * 等待已经提交的变更全部完成后停止写线程，之后提交的变更直接失败
+     */
+    @Override
+    public void close() throws InterruptedException {
+        closed = true;
+        LockSupport.unpark(writer);
+        writer.join();
+    }
+
+    private CompletableFuture<Void> submit(Mutation mutation) {
+        if (closed) {
+            mutation.future.completeExceptionally(new IllegalStateException("route writer is closed"));
+            return mutation.future;
+        }
+
+        queue.offer(mutation);
+        if (idle.compareAndSet(true, false)) {
+            LockSupport.unpark(writer);
+        }
+        // 和close同时发生时写线程可能已经退出，由写线程或者这里之一让它失败
+        if (terminated && queue.remove(mutation)) {
+            mutation.future.completeExceptionally(new IllegalStateException("route writer is closed"));
+        }
+        return mutation.future;
+    }
+
+    private void run() {
+        List<Mutation> batch = new ArrayList<>();
+        while (true) {
+            Mutation mutation;
+            while (batch.size() < MAX_BATCH && (mutation = queue.poll()) != null) {
+                batch.add(mutation);
+            }
+
+            if (!batch.isEmpty()) {
+                apply(batch);
+                batch.clear();
+                continue;
+            }
+
+            if (closed) {
+                terminated = true;
+                while ((mutation = queue.poll()) != null) {
+                    mutation.future.completeExceptionally(new IllegalStateException("route writer is closed"));
+                }
+                return;
+            }
+
+            // 先标记idle再检查一次队列，避免生产者在poll之后、park之前放进来的变更没人处理
+            idle.set(true);
+            if (queue.isEmpty() && !closed) {
+                LockSupport.park(this);
+            }
+            idle.set(false);
+        }
+    }
+
+    private void apply(List<Mutation> batch) {
+        Map<String, Mutation> last = new LinkedHashMap<>();
+        for (Mutation mutation : batch) {
+            last.remove(mutation.path);
+            last.put(mutation.path, mutation);
+        }
+
+        RouteDiff diff = new RouteDiff();
+        for (Mutation mutation : last.values()) {
+            if (mutation.remove) {
+                diff.getRemoved().add(mutation.path);
+            } else {
+                diff.getAdded().add(new NodeValue(mutation.path, mutation.assetId));
+            }
+        }
+
+        try {
+            router.apply(diff);
+        } catch (Throwable e) {
+            applyOneByOne(batch);
+            return;
+        }
+
+        for (Mutation mutation : batch) {
+            mutation.future.complete(null);
+        }
+    }
+
+    private void applyOneByOne(List<Mutation> batch) {
+        for (Mutation mutation : batch) {
+            try {
+                if (mutation.remove) {
+                    router.remove(mutation.path);
+                } else {
+                    router.addRoute(mutation.path, mutation.assetId);
+                }
+                mutation.future.complete(null);
+            } catch (Throwable e) {
+                mutation.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private static class Mutation {
+        private final String path;
+        private final String assetId;
+        private final boolean remove;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private Mutation(String path, String assetId, boolean remove) {
+            this.path = path;
+            this.assetId = assetId;
+            this.remove = remove;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.gin;
+
+/**
+ * 对应gin的RouterGroup，路由注册到{@link MethodTrees}中对应方法的树上
+ * 注册时分组的中间件和路由自己的处理函数合并成一个{@link HandlersChain}保存到节点上，请求时不需要再查询和合并
+ * 和gin一样，之后再调用{@link #use(HandlersFunc...)}不会影响已经注册的路由
+ * 注册路由不是线程安全的，应该在处理请求之前完成
+ */
+public class RouterGroup {
+    private final MethodTrees trees;
+    private final String basePath;
+    private HandlersChain handlers;
+
+    public RouterGroup(MethodTrees trees) {
+        this(trees, "/", new HandlersChain());
+    }
+
+    private RouterGroup(MethodTrees trees, String basePath, HandlersChain handlers) {
+        this.trees = trees;
+        this.basePath = basePath;
+        this.handlers = handlers;
+    }
+
+    public String getBasePath() {
+        return basePath;
+    }
+
+    public HandlersChain getHandlers() {
+        return handlers;
+    }
+
+    /**
+     * 添加中间件，只对之后注册的路由和创建的子分组生效
+     *
+     * @param middleware
+     * @return
+     */
+    public RouterGroup use(HandlersFunc... middleware) {
+        handlers = handlers.combine(middleware);
+        return this;
+    }
+
+    /**
+     * @param relativePath
+     * @param middleware   只属于子分组的中间件，排在当前分组的中间件之后
+     * @return 新的子分组
+     */
+    public RouterGroup group(String relativePath, HandlersFunc... middleware) {
+        return new RouterGroup(trees, joinPaths(basePath, relativePath), handlers.combine(middleware));
+    }
+
+    public RouterGroup handle(String method, String relativePath, HandlersFunc... handlersFuncs) {
+        String path = joinPaths(basePath, relativePath);
+        return handle(method, relativePath, "api." + path, handlersFuncs);
+    }
+
+    /**
+     * @param method
+     * @param relativePath  相对于分组的路径，和资产的url一样以/结尾，没有时自动补上
+     * @param assetId
+     * @param handlersFuncs 路由自己的处理函数，排在分组的中间件之后
+     * @return
+     */
+    public RouterGroup handle(String method, String relativePath, String assetId, HandlersFunc... handlersFuncs) {
+        trees.addRoute(method, joinPaths(basePath, relativePath), assetId, handlers.combine(handlersFuncs));
+        return this;
+    }
+
+    private static String joinPaths(String absolutePath, String relativePath) {
+        if (relativePath.isEmpty()) {
+            return absolutePath;
+        }
+
+        String path = absolutePath + (relativePath.charAt(0) == '/' ? relativePath.substring(1) : relativePath);
+        return path.endsWith("/") ? path : path + "/";
+    }
+}
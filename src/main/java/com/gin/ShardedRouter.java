@@ -0,0 +1,236 @@
+package com.gin;
+
+import com.gin.util.TreeUtil;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 按分片键(默认是url的第一段)把路由分到互不相关的{@link ConcurrentRouter}中
+ * 每个分片有自己的锁和根节点，修改不同分片的路由不会互相等待；查询只读取分片的volatile根节点，不会碰到任何锁
+ * 分片键为null的路由(默认是第一段就是路径参数的路由，例如/{id}/test/)放在公共分片中，
+ * 查询先查自己的分片，没有命中资产时再查公共分片，和在一棵树中先匹配静态子节点、失败后回溯到路径参数子节点的顺序相同
+ * 自定义分片键时，能匹配同一个url的路由必须得到相同的分片键，或者分片键为null
+ * 使用默认的分片键时，查询直接在url中计算第一段的hash，到{@link #table}中查找分片，不会截取字符串
+ */
+public class ShardedRouter {
+    private final Function<String, String> shardKey;
+    private final boolean firstSegmentKey;
+    private final ConcurrentHashMap<String, ConcurrentRouter> shards = new ConcurrentHashMap<>();
+    private final ConcurrentRouter shared = new ConcurrentRouter();
+    /**
+     * 默认分片键的查询表，开放寻址，hash与String.hashCode相同，只在新增分片时复制后整体替换
+     */
+    private volatile Shard[] table = new Shard[8];
+
+    public ShardedRouter() {
+        this(ShardedRouter::firstSegment, true);
+    }
+
+    /**
+     * @param shardKey 同时用于路由和查询的url，返回null代表公共分片
+     */
+    public ShardedRouter(Function<String, String> shardKey) {
+        this(shardKey, false);
+    }
+
+    private ShardedRouter(Function<String, String> shardKey, boolean firstSegmentKey) {
+        this.shardKey = shardKey;
+        this.firstSegmentKey = firstSegmentKey;
+    }
+
+    /**
+     * 默认的分片键
+     *
+     * @param path 以/开头
+     * @return url的第一段，第一段中有路径参数时返回null
+     */
+    public static String firstSegment(String path) {
+        int end = path.indexOf('/', 1);
+        if (end < 0) {
+            end = path.length();
+        }
+
+        for (int i = path.indexOf('{', 1); i >= 0 && i < end; i = path.indexOf('{', i + 1)) {
+            if (TreeUtil.wildcardLength(path, i) > 0) {
+                return null;
+            }
+        }
+
+        return path.length() <= 1 ? "" : path.substring(1, end);
+    }
+
+    public Node getValue(String path) {
+        return getValue(path, SkippedNodeStack.local(), null);
+    }
+
+    public Node getValue(String path, SkippedNodeStack skippedNodes) {
+        return getValue(path, skippedNodes, null);
+    }
+
+    public Node getValue(String path, Params params) {
+        return getValue(path, SkippedNodeStack.local(), params);
+    }
+
+    /**
+     * 返回值与所有路由都在一棵树中查询相同：
+     * 分片中匹配失败、需要回溯到根节点时查询公共分片，相当于回溯到根节点的路径参数子节点；
+     * 公共分片的路径参数不接受第一段时，一棵树不会回溯，返回分片最后停留的节点，例如只有/a/、/a/b/、/c/时查询/a/c/得到/a/
+     */
+    private Node getValue(String path, SkippedNodeStack skippedNodes, Params params) {
+        ConcurrentRouter shard = shardOf(path);
+        if (shard == null) {
+            return shared.snapshot().getValue(path, skippedNodes, params);
+        }
+
+        Node root = shard.snapshot();
+        Node node = root.match(path, skippedNodes, params);
+        if (node != null) {
+            return node;
+        }
+
+        Node sharedRoot = shared.snapshot();
+        node = sharedRoot.getValue(path, skippedNodes, params);
+        if (node != sharedRoot) {
+            return node;
+        }
+
+        return root.getValue(path, skippedNodes, params);
+    }
+
+    public void addRoute(String path) {
+        addRoute(path, "api." + path);
+    }
+
+    /**
+     * 只锁住路由所在的分片
+     *
+     * @param path
+     * @param assetId
+     */
+    public void addRoute(String path, String assetId) {
+        String key = shardKey.apply(path);
+        ConcurrentRouter shard = key == null ? shared : shards.computeIfAbsent(key, this::newShard);
+        shard.addRoute(path, assetId);
+    }
+
+    /**
+     * 删除路由之后分片为空时也不会删除分片，避免和同时向这个分片添加路由的线程竞争
+     *
+     * @param path
+     */
+    public void remove(String path) {
+        String key = shardKey.apply(path);
+        ConcurrentRouter shard = key == null ? shared : shards.get(key);
+        if (shard != null) {
+            shard.remove(path);
+        }
+    }
+
+    /**
+     * @return 除公共分片之外的所有分片键
+     */
+    public Set<String> shardKeys() {
+        return Collections.unmodifiableSet(shards.keySet());
+    }
+
+    /**
+     * @param key 为null时返回公共分片
+     * @return 分片不存在时返回null
+     */
+    public ConcurrentRouter shard(String key) {
+        return key == null ? shared : shards.get(key);
+    }
+
+    /**
+     * 查询url所在的分片
+     * 第一段中有路径参数的url不会得到任何分片，因为这样的分片键一定不存在，所以不需要像{@link #firstSegment(String)}一样检查
+     *
+     * @return 只查询公共分片时返回null
+     */
+    private ConcurrentRouter shardOf(String path) {
+        if (!firstSegmentKey) {
+            String key = shardKey.apply(path);
+            return key == null ? null : shards.get(key);
+        }
+
+        int end = path.indexOf('/', 1);
+        if (end < 0) {
+            end = path.length();
+        }
+        int length = Math.max(end - 1, 0);
+        int hash = 0;
+        for (int i = 1; i < end; i++) {
+            hash = 31 * hash + path.charAt(i);
+        }
+
+        Shard[] table = this.table;
+        int mask = table.length - 1;
+        for (int i = spread(hash) & mask; table[i] != null; i = (i + 1) & mask) {
+            Shard shard = table[i];
+            if (shard.hash == hash && shard.key.length() == length && (length == 0 || path.regionMatches(1, shard.key, 0, length))) {
+                return shard.router;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * 在computeIfAbsent中调用，同一个分片键只会调用一次
+     */
+    private ConcurrentRouter newShard(String key) {
+        ConcurrentRouter router = new ConcurrentRouter();
+        if (firstSegmentKey) {
+            index(new Shard(key, router));
+        }
+        return router;
+    }
+
+    private synchronized void index(Shard shard) {
+        Shard[] old = table;
+        int size = 1;
+        for (Shard s : old) {
+            if (s != null) {
+                size++;
+            }
+        }
+
+        // 装载因子不超过1/2
+        Shard[] table = new Shard[size * 2 > old.length ? old.length * 2 : old.length];
+        for (Shard s : old) {
+            if (s != null) {
+                insert(table, s);
+            }
+        }
+        insert(table, shard);
+        this.table = table;
+    }
+
+    private static void insert(Shard[] table, Shard shard) {
+        int mask = table.length - 1;
+        int i = spread(shard.hash) & mask;
+        while (table[i] != null) {
+            i = (i + 1) & mask;
+        }
+        table[i] = shard;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ hash >>> 16;
+    }
+
+    private static final class Shard {
+        private final String key;
+        private final int hash;
+        private final ConcurrentRouter router;
+
+        private Shard(String key, ConcurrentRouter router) {
+            this.key = key;
+            this.hash = key.hashCode();
+            this.router = router;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.gin;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * {@link Node#getValue(String, SkippedNodeStack)} 回溯时使用的栈
+ * 与{@link SkippedNode}不同，这里只记录被跳过的节点本身和该节点开始匹配时在url中的下标，
+ * 回溯时直接从该下标重新匹配该节点的路径参数子节点，不需要再创建SkippedNode、Node和subList
+ * 栈可以复用，每个线程通过{@link #local()}拿到自己的实例
+ */
+public class SkippedNodeStack {
+    private static final ThreadLocal<SkippedNodeStack> LOCAL = ThreadLocal.withInitial(SkippedNodeStack::new);
+
+    private Node[] nodes;
+    private int[] offsets;
+    /**
+     * 压栈时已经记录的路径参数数量，相当于{@link SkippedNode#getParamsCount()}
+     */
+    private int[] paramsCounts;
+    private int size;
+    /**
+     * 查询byte[]和ByteBuffer时复用的包装对象
+     */
+    private PathBytes.ArrayPathBytes arrayPath;
+    private PathBytes.BufferPathBytes bufferPath;
+    /**
+     * 由{@link LookupMetrics}在查询期间打开，关闭时查询不更新下面的计数器
+     */
+    boolean counting;
+    /**
+     * 最近一次查询的开销，每次查询开始时清零，由{@link LookupMetrics}读取
+     * 经过的节点数、压栈次数、回溯次数、栈的最大深度
+     */
+    int visited;
+    int pushed;
+    int backtracked;
+    int maxDepth;
+    /**
+     * 最近一次查询是否匹配到了资产，没有匹配到时返回的是最后停留的节点，见{@link Node#hit(Node)}
+     */
+    boolean matched;
+
+    public SkippedNodeStack() {
+        this(8);
+    }
+
+    public SkippedNodeStack(int capacity) {
+        this.nodes = new Node[Math.max(capacity, 1)];
+        this.offsets = new int[nodes.length];
+        this.paramsCounts = new int[nodes.length];
+    }
+
+    /**
+     * 当前线程复用的栈，拿到的时候已经是空的
+     *
+     * @return
+     */
+    public static SkippedNodeStack local() {
+        SkippedNodeStack stack = LOCAL.get();
+        stack.clear();
+        return stack;
+    }
+
+    /**
+     * 当前线程复用的栈，不清空，用于读取最近一次{@link #local()}查询的结果
+     *
+     * @return
+     */
+    static SkippedNodeStack last() {
+        return LOCAL.get();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        // 只清除用到的部分，避免持有已经被删除的节点
+        Arrays.fill(nodes, 0, size, null);
+        size = 0;
+        visited = 0;
+        pushed = 0;
+        backtracked = 0;
+        maxDepth = 0;
+        matched = false;
+    }
+
+    PathBytes wrap(byte[] path, int from, int to) {
+        if (arrayPath == null) {
+            arrayPath = new PathBytes.ArrayPathBytes();
+        }
+
+        return arrayPath.reset(path, from, to);
+    }
+
+    PathBytes wrap(ByteBuffer path) {
+        if (bufferPath == null) {
+            bufferPath = new PathBytes.BufferPathBytes();
+        }
+
+        return bufferPath.reset(path);
+    }
+
+    void push(Node node, int offset) {
+        push(node, offset, 0);
+    }
+
+    void push(Node node, int offset, int paramsCount) {
+        if (size == nodes.length) {
+            nodes = Arrays.copyOf(nodes, size << 1);
+            offsets = Arrays.copyOf(offsets, size << 1);
+            paramsCounts = Arrays.copyOf(paramsCounts, size << 1);
+        }
+
+        nodes[size] = node;
+        offsets[size] = offset;
+        paramsCounts[size] = paramsCount;
+        size++;
+        if (counting) {
+            pushed++;
+            if (size > maxDepth) {
+                maxDepth = size;
+            }
+        }
+    }
+
+    /**
+     * 依次弹出栈顶，直到找到一个开始匹配位置不晚于offset的节点
+     * 等价于原来的skippedNode.getPath().endsWith(path)，因为两者都是同一个url的后缀
+     *
+     * @param offset 当前剩余url在原始url中的下标
+     * @return 找到的节点在栈中的下标，弹出后仍然可以通过{@link #nodeAt(int)}读取；没有则返回-1
+     */
+    int pop(int offset) {
+        while (size > 0) {
+            size--;
+            if (offsets[size] <= offset) {
+                if (counting) {
+                    backtracked++;
+                }
+                return size;
+            }
+            nodes[size] = null;
+        }
+
+        return -1;
+    }
+
+    Node nodeAt(int i) {
+        Node node = nodes[i];
+        nodes[i] = null;
+        return node;
+    }
+
+    int offsetAt(int i) {
+        return offsets[i];
+    }
+
+    int paramsCountAt(int i) {
+        return paramsCounts[i];
+    }
+}
@@ -0,0 +1,208 @@
+package com.gin;
+
+import com.gin.util.TreeUtil;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * 一次性构建整棵树，用于启动时加载大量api资产
+ * 与依次调用addRoute相比，不会反复分裂节点，也不需要在每一层线性查找子节点：
+ * 排序后，同一个子树中的url是连续的一段，每个节点的path就是这一段url的最长公共前缀
+ * 生成的树与按排序后的顺序依次addRoute得到的树完全相同
+ * 以下两种url在addRoute中的结果依赖插入时树的形状，无法一次性算出来，出现时退回到依次addRoute：
+ * 1. 不属于路径参数的'{'，例如/{ia/和/{id}/，前者会让后者的路径参数在分裂节点时被当成静态路径
+ * 2. 连续的路径参数，例如/{id}/{id}/，insertChild会在两个路径参数之间生成一个path为空的静态节点
+ * 不合法的路径参数同样退回到addRoute，由addRoute抛出异常
+ * 同一个位置出现不同的路径参数时和addRoute一样不允许，例如/{id}/和/{name}/
+ */
+public class TreeBuilder {
+    private TreeBuilder() {
+    }
+
+    /**
+     * @param routes 任意顺序，fullPath相同时与addRoute一样以最后一个assetId为准
+     * @return
+     */
+    public static Node build(Collection<NodeValue> routes) {
+        List<NodeValue> sorted = new ArrayList<>(routes);
+        // 稳定排序，重复的url保持原来的先后顺序
+        sorted.sort(Comparator.comparing(NodeValue::getFullPath));
+        return buildSorted(sorted);
+    }
+
+    /**
+     * @param routes 必须已经按fullPath排序
+     * @return
+     */
+    public static Node buildSorted(List<NodeValue> routes) {
+        // 去重，保留最后一个
+        List<String> paths = new ArrayList<>(routes.size());
+        List<String> assetIds = new ArrayList<>(routes.size());
+        for (NodeValue route : routes) {
+            int last = paths.size() - 1;
+            if (last >= 0 && paths.get(last).equals(route.getFullPath())) {
+                assetIds.set(last, route.getAssetId());
+                continue;
+            }
+            if (last >= 0 && paths.get(last).compareTo(route.getFullPath()) > 0) {
+                throw new IllegalArgumentException(String.format("routes are not sorted: '%s' before '%s'", paths.get(last), route.getFullPath()));
+            }
+            paths.add(route.getFullPath());
+            assetIds.add(route.getAssetId());
+        }
+
+        Node root = new Node();
+        if (paths.isEmpty()) {
+            return root;
+        }
+
+        if (paths.stream().anyMatch(TreeBuilder::dependsOnInsertion)) {
+            for (NodeValue route : routes) {
+                root.addRoute(route.getFullPath(), route.getAssetId());
+            }
+            return root;
+        }
+        root.setNType(NodeType.ROOT);
+
+        String[] pathArray = paths.toArray(new String[0]);
+        String[] assetIdArray = assetIds.toArray(new String[0]);
+
+        Deque<Frame> frames = new ArrayDeque<>();
+        frames.push(new Frame(root, 0, pathArray.length, 0));
+        List<Node> nodes = new ArrayList<>();
+        while (!frames.isEmpty()) {
+            Frame frame = frames.pop();
+            build(frame, pathArray, assetIdArray, frames);
+            nodes.add(frame.node);
+        }
+
+        // 子节点的path在处理子节点时才确定，最后统一生成索引
+        for (Node n : nodes) {
+            n.reindex();
+        }
+
+        return root;
+    }
+
+    /**
+     * 同一个子树中的url，[from, to)，当前节点的path从start开始
+     */
+    private static class Frame {
+        private final Node node;
+        private final int from;
+        private final int to;
+        private final int start;
+
+        private Frame(Node node, int from, int to, int start) {
+            this.node = node;
+            this.from = from;
+            this.to = to;
+            this.start = start;
+        }
+    }
+
+    private static void build(Frame frame, String[] paths, String[] assetIds, Deque<Frame> frames) {
+        Node n = frame.node;
+        int start = frame.start;
+        String first = paths[frame.from];
+
+        int end;
+        if (n.getNType() == NodeType.PARAM) {
+            end = start + TreeUtil.wildcardLength(first, start);
+        } else {
+            // 排序后第一个和最后一个url的公共前缀就是整段的公共前缀
+            String last = paths[frame.to - 1];
+            end = start;
+            int max = Math.min(first.length(), last.length());
+            while (end < max && first.charAt(end) == last.charAt(end)) {
+                end++;
+            }
+
+            // 第一个url插入时，insertChild只会把路径参数之前的部分作为path
+            // 回退到addRoute的情况之外，'{'一定是路径参数的开始
+            int wildcard = first.indexOf('{', start);
+            if (wildcard >= 0 && wildcard < end) {
+                end = wildcard;
+            }
+        }
+        n.setPath(first.substring(start, end));
+
+        int i = frame.from;
+        if (paths[i].length() == end) {
+            n.setAssetId(assetIds[i]);
+            i++;
+        }
+
+        List<Frame> children = new ArrayList<>();
+        Frame wildChild = null;
+        while (i < frame.to) {
+            char c = paths[i].charAt(end);
+            int j = i;
+            while (j < frame.to && paths[j].charAt(end) == c) {
+                j++;
+            }
+
+            if (c == '{') {
+                // 路径参数排在这一段的中间，放到最后
+                String wildcard = paths[i].substring(end, end + TreeUtil.wildcardLength(paths[i], end));
+                for (int k = i + 1; k < j; k++) {
+                    if (!paths[k].startsWith(wildcard, end)) {
+                        throw new IllegalArgumentException(String.format("wildcard in path '%s' conflicts with existing wildcard '%s' in path '%s'", paths[k], wildcard, paths[i]));
+                    }
+                }
+
+                wildChild = new Frame(child(n, NodeType.PARAM), i, j, end);
+                i = j;
+                continue;
+            }
+
+            children.add(new Frame(child(n, NodeType.STATIC), i, j, end));
+            i = j;
+        }
+
+        // 路径参数子节点在最后
+        if (wildChild != null) {
+            children.add(wildChild);
+        }
+
+        List<Node> nodes = new ArrayList<>(children.size());
+        for (Frame child : children) {
+            nodes.add(child.node);
+        }
+        n.setChildren(nodes);
+
+        for (int k = children.size() - 1; k >= 0; k--) {
+            frames.push(children.get(k));
+        }
+    }
+
+    private static boolean dependsOnInsertion(String path) {
+        for (int i = path.indexOf('{'); i >= 0; i = path.indexOf('{', i + 1)) {
+            int length = TreeUtil.wildcardLength(path, i);
+            if (length < 0 || TreeUtil.wildcardLength(path, i + length) > 0) {
+                return true;
+            }
+
+            // 不合法的路径参数交给addRoute抛出异常
+            try {
+                Node.checkWildcard(TreeUtil.findWildcard(path.substring(i, i + length)), path);
+            } catch (Exception e) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static Node child(Node parent, NodeType nType) {
+        Node child = new Node();
+        child.setNType(nType);
+        child.setParent(parent);
+        return child;
+    }
+}
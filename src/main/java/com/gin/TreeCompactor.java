@@ -0,0 +1,110 @@
+package com.gin;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 生成一棵更省内存的树，结果与原来的树匹配逻辑完全一致，原来的树不会被修改
+ * 1. 非叶子节点的children按子节点数量分配，叶子节点共享同一个空列表
+ * 2. 相同的path、pathBytes、assetId和子节点索引只保留一份，同一个TreeCompactor压缩的多棵树(例如多个租户)之间也会共享
+ * 3. keepParents为false时不保存parent，{@link ConcurrentRouter}的旧版本不会被共享子树的parent引用而无法回收；
+ * remove查找节点时会重新设置经过节点的parent，因此仍然可以删除
+ * 压缩之后仍然可以addRoute和remove，只是新增的部分不再是紧凑的，可以定期重新压缩
+ */
+public class TreeCompactor {
+    private final boolean keepParents;
+    private final Map<String, String> strings = new HashMap<>();
+    private final Map<String, byte[]> labelBytes = new HashMap<>();
+    private final Map<String, ChildIndex> indexes = new HashMap<>();
+
+    public TreeCompactor() {
+        this(true);
+    }
+
+    public TreeCompactor(boolean keepParents) {
+        this.keepParents = keepParents;
+    }
+
+    /**
+     * @param root
+     * @return 压缩后的新树
+     */
+    public Node compact(Node root) {
+        Node copy = copy(root, null);
+        Deque<Node> nodes = new ArrayDeque<>();
+        Deque<Node> copies = new ArrayDeque<>();
+        nodes.push(root);
+        copies.push(copy);
+
+        while (!nodes.isEmpty()) {
+            Node n = nodes.pop();
+            Node c = copies.pop();
+            if (n.getChildren().isEmpty()) {
+                c.setChildren(Node.NO_CHILDREN, ChildIndex.EMPTY);
+                continue;
+            }
+
+            // 子节点顺序不变，原来的索引可以直接使用
+            List<Node> children = new ArrayList<>(n.getChildren().size());
+            for (Node child : n.getChildren()) {
+                Node childCopy = copy(child, keepParents ? c : null);
+                children.add(childCopy);
+                nodes.push(child);
+                copies.push(childCopy);
+            }
+            c.setChildren(children, index(n.getChildIndex()));
+        }
+
+        return copy;
+    }
+
+    /**
+     * @return 目前共享的字符串数量
+     */
+    public int size() {
+        return strings.size();
+    }
+
+    private Node copy(Node n, Node parent) {
+        Node copy = new Node();
+        String path = intern(n.getPath());
+        copy.setLabel(path, labelBytes.computeIfAbsent(path, key -> n.getPathBytes()));
+        copy.setNType(n.getNType());
+        copy.setParent(parent);
+        copy.setAssetId(intern(n.getAssetId()));
+        copy.setHandlers(n.getHandlers());
+        copy.hits = n.hits;
+        return copy;
+    }
+
+    private String intern(String s) {
+        if (s == null) {
+            return null;
+        }
+
+        String shared = strings.putIfAbsent(s, s);
+        return shared == null ? s : shared;
+    }
+
+    /**
+     * 只共享没有ASCII表的索引，key是首字母和下标交替组成的字符串
+     */
+    private ChildIndex index(ChildIndex index) {
+        if (index.table != null || index.size() == 0) {
+            return index;
+        }
+
+        char[] key = new char[index.size() * 2];
+        for (int i = 0; i < index.size(); i++) {
+            key[i * 2] = index.chars[i];
+            key[i * 2 + 1] = (char) index.positions[i];
+        }
+
+        ChildIndex shared = indexes.putIfAbsent(new String(key), index);
+        return shared == null ? index : shared;
+    }
+}
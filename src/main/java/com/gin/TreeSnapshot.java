@@ -0,0 +1,235 @@
+package com.gin;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+/**
+ * {@link FrozenTree}的二进制快照，用于重启时跳过建树
+ * 文件格式(小端)：
+ * <pre>
+ * header:  magic(int) formatVersion(int) routesVersion(long) nodeCount(int) labelLength(int) tableLength(int) height(int)
+ *          payloadLength(int) crc32(long)
+ * payload: labels(char[labelLength]) labelStart(int[nodeCount + 1]) firstChars(char[nodeCount]) params(byte[nodeCount])
+ *          childStart(int[nodeCount]) childCount(int[nodeCount]) wildChild(int[nodeCount]) tableStart(int[nodeCount])
+ *          depth(int[nodeCount]) fallback(int[nodeCount]) tables(int[tableLength]) assetIds(每个是int长度 + UTF-8，null的长度为-1)
+ * </pre>
+ * 读取时通过FileChannel映射整个文件，直接把各个数组批量拷贝出来，不会创建任何Node
+ * firstChars、depth、fallback和height虽然能从其他数组推导出来，也一起保存，读取时不再遍历整棵树
+ * magic、formatVersion、routesVersion或者crc32不一致的快照都会被拒绝
+ */
+public class TreeSnapshot {
+    private static final int MAGIC = 0x52445854;
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_LENGTH = 4 + 4 + 8 + 4 + 4 + 4 + 4 + 4 + 8;
+
+    private TreeSnapshot() {
+    }
+
+    /**
+     * 写入快照，先写临时文件再替换，不会留下写了一半的快照
+     *
+     * @param tree
+     * @param file
+     * @param routesVersion 生成这棵树的资产版本，由调用方定义，读取时用于判断快照是否过期
+     * @throws IOException
+     */
+    public static void write(FrozenTree tree, Path file, long routesVersion) throws IOException {
+        int size = tree.size();
+        byte[][] assetIds = new byte[size][];
+        int payloadLength = tree.labels.length * 2 + (size + 1) * 4 + size * 2 + size + size * 4 * 6 + tree.tables.length * 4;
+        for (int i = 0; i < size; i++) {
+            String assetId = tree.getAssetId(i);
+            assetIds[i] = assetId == null ? null : assetId.getBytes(StandardCharsets.UTF_8);
+            payloadLength += 4 + (assetId == null ? 0 : assetIds[i].length);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_LENGTH + payloadLength).order(ByteOrder.LITTLE_ENDIAN);
+        // 通过Buffer调用，Java 8没有返回ByteBuffer的position(int)
+        ((Buffer) buffer).position(HEADER_LENGTH);
+        buffer.asCharBuffer().put(tree.labels);
+        ((Buffer) buffer).position(buffer.position() + tree.labels.length * 2);
+        putInts(buffer, tree.labelStart);
+        buffer.asCharBuffer().put(tree.firstChars);
+        ((Buffer) buffer).position(buffer.position() + size * 2);
+        for (boolean param : tree.params) {
+            buffer.put((byte) (param ? 1 : 0));
+        }
+        putInts(buffer, tree.childStart);
+        putInts(buffer, tree.childCount);
+        putInts(buffer, tree.wildChild);
+        putInts(buffer, tree.tableStart);
+        putInts(buffer, tree.depth);
+        putInts(buffer, tree.fallback);
+        putInts(buffer, tree.tables);
+        for (byte[] assetId : assetIds) {
+            if (assetId == null) {
+                buffer.putInt(-1);
+                continue;
+            }
+            buffer.putInt(assetId.length);
+            buffer.put(assetId);
+        }
+
+        ((Buffer) buffer).position(HEADER_LENGTH);
+        CRC32 crc32 = new CRC32();
+        crc32.update(buffer);
+
+        ((Buffer) buffer).position(0);
+        buffer.putInt(MAGIC)
+                .putInt(FORMAT_VERSION)
+                .putLong(routesVersion)
+                .putInt(size)
+                .putInt(tree.labels.length)
+                .putInt(tree.tables.length)
+                .putInt(tree.height)
+                .putInt(payloadLength)
+                .putLong(crc32.getValue());
+        ((Buffer) buffer).position(0);
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @param file
+     * @param routesVersion 期望的资产版本
+     * @return
+     * @throws IOException 文件不存在、损坏或者过期
+     */
+    public static FrozenTree read(Path file, long routesVersion) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_LENGTH) {
+                throw new IOException(String.format("snapshot '%s' is truncated", file));
+            }
+
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            ByteBuffer buffer = mapped.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException(String.format("'%s' is not a route snapshot", file));
+            }
+            int formatVersion = buffer.getInt();
+            if (formatVersion != FORMAT_VERSION) {
+                throw new IOException(String.format("snapshot '%s' has format version %d, expected %d", file, formatVersion, FORMAT_VERSION));
+            }
+            long version = buffer.getLong();
+            if (version != routesVersion) {
+                throw new IOException(String.format("snapshot '%s' is stale: routes version %d, expected %d", file, version, routesVersion));
+            }
+
+            int size = buffer.getInt();
+            int labelLength = buffer.getInt();
+            int tableLength = buffer.getInt();
+            int height = buffer.getInt();
+            int payloadLength = buffer.getInt();
+            long checksum = buffer.getLong();
+            if (size <= 0 || labelLength < 0 || tableLength < 0 || height < 0 || payloadLength != channel.size() - HEADER_LENGTH) {
+                throw new IOException(String.format("snapshot '%s' is truncated", file));
+            }
+
+            CRC32 crc32 = new CRC32();
+            crc32.update(buffer.duplicate());
+            if (crc32.getValue() != checksum) {
+                throw new IOException(String.format("snapshot '%s' is corrupted: checksum mismatch", file));
+            }
+
+            try {
+                return readPayload(buffer, size, labelLength, tableLength, height);
+            } catch (RuntimeException e) {
+                throw new IOException(String.format("snapshot '%s' is corrupted", file), e);
+            }
+        }
+    }
+
+    /**
+     * 优先读取快照，快照不可用时重新建树并写入新的快照
+     *
+     * @param file
+     * @param routesVersion
+     * @param rebuild       重新建树
+     * @return
+     * @throws IOException 写入新快照失败
+     */
+    public static FrozenTree load(Path file, long routesVersion, Supplier<Node> rebuild) throws IOException {
+        if (Files.exists(file)) {
+            try {
+                return read(file, routesVersion);
+            } catch (IOException e) {
+                // 快照不可用，重新建树
+            }
+        }
+
+        FrozenTree tree = rebuild.get().freeze();
+        write(tree, file, routesVersion);
+        return tree;
+    }
+
+    private static FrozenTree readPayload(ByteBuffer buffer, int size, int labelLength, int tableLength, int height) {
+        char[] labels = new char[labelLength];
+        buffer.asCharBuffer().get(labels);
+        ((Buffer) buffer).position(buffer.position() + labelLength * 2);
+
+        int[] labelStart = getInts(buffer, size + 1);
+        char[] firstChars = new char[size];
+        buffer.asCharBuffer().get(firstChars);
+        ((Buffer) buffer).position(buffer.position() + size * 2);
+        boolean[] params = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            params[i] = buffer.get() != 0;
+        }
+        int[] childStart = getInts(buffer, size);
+        int[] childCount = getInts(buffer, size);
+        int[] wildChild = getInts(buffer, size);
+        int[] tableStart = getInts(buffer, size);
+        int[] depth = getInts(buffer, size);
+        int[] fallback = getInts(buffer, size);
+        int[] tables = getInts(buffer, tableLength);
+
+        String[] assetIds = new String[size];
+        for (int i = 0; i < size; i++) {
+            int length = buffer.getInt();
+            if (length < 0) {
+                continue;
+            }
+            assetIds[i] = new String(getBytes(buffer, length), StandardCharsets.UTF_8);
+        }
+
+        return new FrozenTree(labels, labelStart, firstChars, params, childStart, childCount, wildChild, tableStart, tables, assetIds,
+                depth, fallback, height);
+    }
+
+    private static byte[] getBytes(ByteBuffer buffer, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static void putInts(ByteBuffer buffer, int[] values) {
+        buffer.asIntBuffer().put(values);
+        ((Buffer) buffer).position(buffer.position() + values.length * 4);
+    }
+
+    private static int[] getInts(ByteBuffer buffer, int length) {
+        int[] values = new int[length];
+        buffer.asIntBuffer().get(values);
+        ((Buffer) buffer).position(buffer.position() + length * 4);
+        return values;
+    }
+}
@@ -0,0 +1,26 @@
+package com.gin.util;
+
+/**
+ * 字节数组的前缀比较
+ * 这是Java 8的实现，逐个字节比较；jar是multi-release的，Java 9+会加载META-INF/versions/9中基于Arrays.mismatch的实现，
+ * Arrays.mismatch是HotSpot的intrinsic，一次比较一个向量宽度的字节，较长的静态path只需要几次比较
+ * 两个实现的结果必须完全一致
+ */
+public final class Mismatch {
+    private Mismatch() {
+    }
+
+    /**
+     * @return a[aFrom, aTo)和b[bFrom, bTo)的公共前缀的字节数
+     */
+    public static int commonPrefix(byte[] a, int aFrom, int aTo, byte[] b, int bFrom, int bTo) {
+        int i = 0;
+        int max = Math.min(aTo - aFrom, bTo - bFrom);
+
+        while (i < max && a[aFrom + i] == b[bFrom + i]) {
+            i++;
+        }
+
+        return i;
+    }
+}
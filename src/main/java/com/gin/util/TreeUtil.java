@@ -5,6 +5,8 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.SneakyThrows;
 
+import java.nio.ByteBuffer;
+
 public class TreeUtil {
     private TreeUtil() {
     }
@@ -29,27 +31,116 @@ public class TreeUtil {
         return i;
     }
 
+    /**
+     * 字节版本的longestCommonPrefix，比较a[aFrom, aTo)和b[bFrom, bTo)，Java 9+使用Arrays.mismatch，见{@link Mismatch}
+     *
+     * @return 公共前缀的字节数
+     */
+    public static int longestCommonPrefix(byte[] a, int aFrom, int aTo, byte[] b, int bFrom, int bTo) {
+        return Mismatch.commonPrefix(a, aFrom, aTo, b, bFrom, bTo);
+    }
+
+    /**
+     * 比较ByteBuffer中[aFrom, aTo)和b[bFrom, bTo)，使用绝对下标读取，不会修改position
+     * 有底层数组的ByteBuffer直接比较数组
+     *
+     * @return 公共前缀的字节数
+     */
+    public static int longestCommonPrefix(ByteBuffer a, int aFrom, int aTo, byte[] b, int bFrom, int bTo) {
+        if (a.hasArray()) {
+            return longestCommonPrefix(a.array(), a.arrayOffset() + aFrom, a.arrayOffset() + aTo, b, bFrom, bTo);
+        }
+
+        int i = 0;
+        int max = Math.min(aTo - aFrom, bTo - bFrom);
+
+        while (i < max && a.get(aFrom + i) == b[bFrom + i]) {
+            i++;
+        }
+
+        return i;
+    }
+
+    /**
+     * 根据UTF-8编码的首字节判断这个字符占几个字节，非法的首字节按1个字节处理
+     *
+     * @param lead
+     * @return
+     */
+    public static int utf8Length(byte lead) {
+        if ((lead & 0x80) == 0) {
+            return 1;
+        }
+        if ((lead & 0xE0) == 0xC0) {
+            return 2;
+        }
+        if ((lead & 0xF0) == 0xE0) {
+            return 3;
+        }
+        if ((lead & 0xF8) == 0xF0) {
+            return 4;
+        }
+
+        return 1;
+    }
+
     /**
      * Search for a wildcard segment and check the name for invalid characters.
      * 找到每个url片段中可能是路径参数的部分
+     * 路径参数的写法是{name}/或者{name:type}/，{和}之间不能有/和{，不满足的'{'按静态路径处理
      *
      * @param path 默认认为传入的uri都是符合openapi 3.0规范的；且由于一定原因，uri一定以 / 结尾
-     * @return 例如/api/{id}/test/，返回的就是 {id}/,5,true
+     * @return 例如/api/{id}/test/，返回的就是 {id}/,5,true；名字中有字母、数字和_之外的字符时valid为false
      */
     @SneakyThrows
     public static FindWildcard findWildcard(String path) {
         // Find start
         for (int start = 0; start < path.length(); start++) {
-            char c = path.charAt(start);
-
             // A wildcard starts with '{' (param)
-            if (c == '{') {
-                if (path.substring(start).startsWith("{id}/")) {
-                    return new FindWildcard("{id}/", start, true);
-                }
+            int length = wildcardLength(path, start);
+            if (length > 0) {
+                String wildcard = path.substring(start, start + length);
+                return new FindWildcard(wildcard, start, isValidName(wildcard));
             }
         }
 
         return new FindWildcard("", -1, false);
     }
+
+    /**
+     * @param path
+     * @param start
+     * @return path在start处的路径参数的长度，包括结尾的/，不是路径参数时返回-1
+     */
+    public static int wildcardLength(String path, int start) {
+        if (start >= path.length() || path.charAt(start) != '{') {
+            return -1;
+        }
+
+        for (int end = start + 1; end < path.length(); end++) {
+            char c = path.charAt(end);
+            if (c == '}') {
+                return end + 1 < path.length() && path.charAt(end + 1) == '/' ? end + 2 - start : -1;
+            }
+            if (c == '/' || c == '{') {
+                return -1;
+            }
+        }
+
+        return -1;
+    }
+
+    private static boolean isValidName(String wildcard) {
+        for (int i = 1; i < wildcard.length(); i++) {
+            char c = wildcard.charAt(i);
+            if (c == ':' || c == '}') {
+                return true;
+            }
+            if (!Character.isLetterOrDigit(c) && c != '_') {
+                return false;
+            }
+        }
+
+        return true;
+    }
 }
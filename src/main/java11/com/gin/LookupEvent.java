@@ -0,0 +1,65 @@
+package com.gin;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+import java.util.function.Supplier;
+
+/**
+ * 每次lookup的JFR事件，只在{@link LookupMetrics}开启并且运行时支持JFR时提交
+ * 耗时记录在lookupTime中，事件本身的duration为0
+ * Java 11+的实现，编译到META-INF/versions/11，见src/main/java中的同名类
+ */
+@Name("com.gin.Lookup")
+@Label("Route Lookup")
+@Category("Radix Tree")
+@Description("Cost of a single route lookup")
+@StackTrace(false)
+class LookupEvent extends Event {
+    @Label("Path")
+    String path;
+
+    @Label("Asset Id")
+    String assetId;
+
+    @Label("Hit")
+    boolean hit;
+
+    @Label("Nodes Visited")
+    int nodesVisited;
+
+    @Label("Skipped Nodes Pushed")
+    int skippedPushes;
+
+    @Label("Backtracks")
+    int backtracks;
+
+    @Label("Max Skipped Depth")
+    int maxSkippedDepth;
+
+    @Label("Lookup Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long lookupTime;
+
+    static void commit(Supplier<String> path, Node n, boolean hit, SkippedNodeStack stack, long nanos) {
+        LookupEvent event = new LookupEvent();
+        if (!event.isEnabled()) {
+            return;
+        }
+
+        event.path = path.get();
+        event.assetId = n == null ? null : n.getAssetId();
+        event.hit = hit;
+        event.nodesVisited = stack.visited;
+        event.skippedPushes = stack.pushed;
+        event.backtracks = stack.backtracked;
+        event.maxSkippedDepth = stack.maxDepth;
+        event.lookupTime = nanos;
+        event.commit();
+    }
+}
@@ -0,0 +1,20 @@
+package com.gin.util;
+
+import java.util.Arrays;
+
+/**
+ * Java 9+的实现，见src/main/java中的同名类
+ */
+public final class Mismatch {
+    private Mismatch() {
+    }
+
+    /**
+     * @return a[aFrom, aTo)和b[bFrom, bTo)的公共前缀的字节数
+     */
+    public static int commonPrefix(byte[] a, int aFrom, int aTo, byte[] b, int bFrom, int bTo) {
+        // 其中一段是另一段的前缀时返回较短的长度，完全相同时返回-1
+        int i = Arrays.mismatch(a, aFrom, aTo, b, bFrom, bTo);
+        return i < 0 ? aTo - aFrom : i;
+    }
+}
@@ -0,0 +1,94 @@
+package com.gin;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class AccessLogClassifierTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static MethodTrees trees() {
+        Node get = new Node();
+        get.addRoute("/api/users/{id:int}/", "users");
+        get.addRoute("/api/users/me/", "me");
+        get.addRoute("/资产/{id}/", "assets");
+        Node post = new Node();
+        post.addRoute("/api/users/", "create");
+        return new MethodTrees(new ArrayList<>(Arrays.asList(new MethodTree("GET", get), new MethodTree("POST", post))));
+    }
+
+    @Test
+    public void classifyTest() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("access.log");
+        List<String> lines = Arrays.asList(
+                "127.0.0.1 - - [10/Oct/2000:13:55:36 -0700] \"GET /api/users/1 HTTP/1.1\" 200 2326",
+                "127.0.0.1 - - [10/Oct/2000:13:55:37 -0700] \"GET /api/users/me/?full=1 HTTP/1.1\" 200 12\r",
+                "GET /api/users/2/ HTTP/1.1",
+                "POST /api/users",
+                "GET /资产/7 HTTP/1.1",
+                "",
+                "DELETE /api/users/1 HTTP/1.1",
+                "GET /api/users/abc HTTP/1.1",
+                "garbage",
+                "\"GET http://example.com/ HTTP/1.1\""
+        );
+        Files.write(file, String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+
+        AccessLogStats stats = new AccessLogClassifier(trees()).classify(file);
+        Assert.assertEquals(9, stats.getLines());
+        Assert.assertEquals(2, stats.getMalformed());
+        Assert.assertEquals(2, stats.getUnmatched());
+        Assert.assertEquals(5, stats.getMatched());
+        Map<String, Long> expected = new HashMap<>();
+        expected.put("users", 2L);
+        expected.put("me", 1L);
+        expected.put("create", 1L);
+        expected.put("assets", 1L);
+        Assert.assertEquals(expected, stats.getCounts());
+    }
+
+    @Test
+    public void chunkTest() throws IOException {
+        // 很小的块，大部分行都会跨越块的边界
+        Random random = new Random(1);
+        StringBuilder log = new StringBuilder();
+        long users = 0;
+        long me = 0;
+        for (int i = 0; i < 2000; i++) {
+            if (random.nextBoolean()) {
+                log.append("GET /api/users/").append(random.nextInt(100000)).append(" HTTP/1.1\n");
+                users++;
+            } else {
+                log.append("10.0.0.").append(i % 256).append(" \"GET /api/users/me HTTP/1.1\" 200\n");
+                me++;
+            }
+        }
+        Path file = folder.getRoot().toPath().resolve("chunks.log");
+        Files.write(file, log.toString().getBytes(StandardCharsets.UTF_8));
+
+        for (int chunkSize : new int[]{1, 7, 64, 1 << 20}) {
+            AccessLogStats stats = new AccessLogClassifier(trees(), ForkJoinPool.commonPool(), chunkSize).classify(file);
+            Assert.assertEquals(2000, stats.getLines());
+            Assert.assertEquals(Long.valueOf(users), stats.getCounts().get("users"));
+            Assert.assertEquals(Long.valueOf(me), stats.getCounts().get("me"));
+        }
+
+        Path empty = folder.getRoot().toPath().resolve("empty.log");
+        Files.write(empty, new byte[0]);
+        Assert.assertEquals(0, new AccessLogClassifier(trees()).classify(empty).getLines());
+    }
+}
@@ -0,0 +1,44 @@
+package com.gin;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+public class BatchLookupTest {
+    @Test
+    public void getValuesTest() {
+        Node root = new Node();
+        root.addRoute("/{id}/test/");
+        root.addRoute("/api/test/{id}/");
+        root.addRoute("/{id}/aaa/");
+        root.addRoute("/{id}/{id}/");
+        root.addRoute("/api/te/{id}/");
+        root.addRoute("/apiii/test/");
+        root.addRoute("/test/test/test/");
+        root.addRoute("/test/test/{id}/111/");
+        root.addRoute("/test/test/123/222/");
+        root.addRoute("/test/test/124/{id}/");
+        root.addRoute("/test/test/124/222/");
+
+        String[] segments = {"api", "apiii", "test", "te", "aaa", "111", "123", "124", "222", "22"};
+        Random random = new Random(42);
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            StringBuilder sb = new StringBuilder("/");
+            int depth = 1 + random.nextInt(4);
+            for (int j = 0; j < depth; j++) {
+                sb.append(segments[random.nextInt(segments.length)]).append('/');
+            }
+            paths.add(sb.toString());
+        }
+
+        List<String> expected = paths.stream().map(path -> root.getValue(path, new ArrayList<>()).getAssetId()).collect(Collectors.toList());
+        BatchLookup batchLookup = new BatchLookup(root);
+        Assert.assertEquals(expected, batchLookup.getValues(paths));
+        Assert.assertEquals(expected, batchLookup.getValues(paths.stream()));
+    }
+}
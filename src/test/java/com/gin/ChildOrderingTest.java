@@ -0,0 +1,92 @@
+package com.gin;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class ChildOrderingTest {
+    private static final String[] ROUTES = {
+            "/api/alpha/", "/api/beta/{id}/", "/api/gamma/", "/api/delta/", "/api/echo/{id}/x/", "/api/{id}/", "/zeta/",
+    };
+
+    private static Node tree() {
+        Node root = new Node();
+        for (String route : ROUTES) {
+            root.addRoute(route);
+        }
+        HitCounters.enable(root);
+        return root;
+    }
+
+    @Test
+    public void reorderTest() {
+        Node root = tree();
+        Node api = root.staticChild('a');
+        Assert.assertEquals("/api/", root.getPath() + api.getPath());
+        Assert.assertEquals("abdeg", new String(api.getChildIndex().chars));
+
+        // 没有命中时不调整
+        Assert.assertEquals(0, ChildOrdering.reorder(root));
+
+        for (int i = 0; i < 10; i++) {
+            root.lookup("/api/echo/1/x/");
+            root.lookup("/api/delta/");
+        }
+        root.lookup("/api/echo/2/x/");
+        root.lookup("/api/gamma/");
+        Assert.assertEquals(1, ChildOrdering.reorder(root));
+        Assert.assertEquals("edgab", new String(api.getChildIndex().chars));
+        Assert.assertEquals(0, ChildOrdering.reorder(root));
+
+        // 查找结果不变，包括未命中和回溯到路径参数的情况
+        Node expected = new Node();
+        for (String route : ROUTES) {
+            expected.addRoute(route);
+        }
+        for (String path : new String[]{"/api/alpha/", "/api/beta/7/", "/api/echo/1/x/", "/api/delta/", "/api/gamma/",
+                "/api/eta/", "/api/a/", "/api/zz/", "/zeta/", "/api/echo/1/y/"}) {
+            Assert.assertEquals(path, expected.lookup(path).getAssetId(), root.lookup(path).getAssetId());
+        }
+
+        // children变化后按首字母重新生成
+        root.addRoute("/api/omega/");
+        Assert.assertEquals("abdego", new String(api.getChildIndex().chars));
+    }
+
+    @Test
+    public void concurrentTest() throws Exception {
+        ConcurrentRouter router = new ConcurrentRouter(tree());
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<String> error = new AtomicReference<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            readers.add(new Thread(() -> {
+                Params params = new Params();
+                while (running.get()) {
+                    if (!"api./api/echo/{id}/x/".equals(router.getValue("/api/echo/1/x/", params).getAssetId())
+                            || !"api./api/{id}/".equals(router.getValue("/api/gamma1/", params).getAssetId())) {
+                        error.set("wrong result");
+                    }
+                }
+            }));
+        }
+        readers.forEach(Thread::start);
+
+        for (int i = 0; i < 200; i++) {
+            router.getValue(i % 2 == 0 ? "/api/delta/" : "/api/alpha/");
+            router.reorderChildren();
+            if (i % 50 == 0) {
+                router.addRoute("/api/n" + i + "/");
+            }
+        }
+        running.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        Assert.assertNull(error.get());
+    }
+}
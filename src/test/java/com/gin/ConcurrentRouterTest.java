@@ -0,0 +1,115 @@
+package com.gin;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class ConcurrentRouterTest {
+    @Test
+    public void snapshotIsolationTest() {
+        ConcurrentRouter router = new ConcurrentRouter();
+        router.addRoute("/{id}/test/");
+        router.addRoute("/{id}/{id}/");
+        router.addRoute("/api/test/{id}/");
+
+        Node before = router.snapshot();
+        router.remove("/{id}/test/");
+        router.addRoute("/api/te/{id}/");
+        router.addRoute("/test/test/111/");
+
+        Assert.assertEquals("api./{id}/test/", before.lookup("/test/test/").getAssetId());
+        Assert.assertEquals("api./api/test/{id}/", before.lookup("/api/test/1/").getAssetId());
+        Assert.assertEquals("/", before.getPath());
+        Assert.assertEquals(2, before.getChildren().size());
+
+        Assert.assertEquals("api./{id}/{id}/", router.getValue("/test/test/").getAssetId());
+        Assert.assertEquals("api./api/te/{id}/", router.getValue("/api/te/1/").getAssetId());
+        Assert.assertEquals("api./test/test/111/", router.getValue("/test/test/111/").getAssetId());
+        Assert.assertEquals("api./api/test/{id}/", router.getValue("/api/test/1/").getAssetId());
+
+        router.remove("/test/test/111/");
+        router.remove("/api/te/{id}/");
+        router.remove("/api/test/{id}/");
+        router.remove("/{id}/{id}/");
+        Assert.assertNull(router.getValue("/test/test/").getAssetId());
+        Assert.assertEquals("api./{id}/test/", before.lookup("/test/test/").getAssetId());
+        Assert.assertEquals("api./api/test/{id}/", before.lookup("/api/test/1/").getAssetId());
+    }
+
+    @Test
+    public void concurrentReadWriteTest() throws InterruptedException {
+        ConcurrentRouter router = new ConcurrentRouter();
+        router.addRoute("/api/v1/users/{id}/");
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread reader = new Thread(() -> {
+                try {
+                    while (running.get()) {
+                        Assert.assertEquals("api./api/v1/users/{id}/", router.getValue("/api/v1/users/42/").getAssetId());
+                    }
+                } catch (Throwable e) {
+                    error.set(e);
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+
+        for (int i = 0; i < 2000; i++) {
+            router.addRoute("/api/v1/items" + i + "/{id}/");
+            if (i % 2 == 0) {
+                router.remove("/api/v1/items" + i + "/{id}/");
+            }
+        }
+        running.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        Assert.assertNull(error.get());
+        Assert.assertEquals("api./api/v1/items1/{id}/", router.getValue("/api/v1/items1/7/").getAssetId());
+        Assert.assertNull(router.getValue("/api/v1/items2/7/").getAssetId());
+    }
+
+    @Test
+    public void cacheTest() {
+        ConcurrentRouter router = new ConcurrentRouter();
+        router.addRoute("/{id}/test/");
+        router.addRoute("/api/{id}/");
+        router.enableCache(1000);
+
+        Assert.assertEquals("api./{id}/test/", router.getValue("/test/test/").getAssetId());
+        Assert.assertEquals("api./{id}/test/", router.getValue("/test/test/").getAssetId());
+        Assert.assertEquals(1, router.getCache().getHitCount());
+        Assert.assertEquals(1, router.getCache().getMissCount());
+
+        // 修改之后旧的缓存失效
+        router.addRoute("/test/test/");
+        Assert.assertEquals("api./test/test/", router.getValue("/test/test/").getAssetId());
+        router.remove("/test/test/");
+        Assert.assertEquals("api./{id}/test/", router.getValue("/test/test/").getAssetId());
+        Assert.assertEquals(1, router.getCache().getHitCount());
+
+        // 大量只访问一次的url不会把热点url挤出缓存
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals("api./api/{id}/", router.getValue("/api/hot/").getAssetId());
+        }
+        for (int i = 0; i < 100000; i++) {
+            router.getValue("/api/" + i + "/");
+            if (i % 100 == 0) {
+                router.getValue("/api/hot/");
+            }
+        }
+        Assert.assertTrue(router.getCache().size() <= 1000 + 16);
+        long hits = router.getCache().getHitCount();
+        router.getValue("/api/hot/");
+        Assert.assertEquals(hits + 1, router.getCache().getHitCount());
+    }
+}
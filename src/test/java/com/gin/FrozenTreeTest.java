@@ -0,0 +1,133 @@
+package com.gin;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+public class FrozenTreeTest {
+    @Test
+    public void getValueTest() {
+        Node root = new Node();
+        root.addRoute("/{id}/test/");
+        root.addRoute("/api/test/{id}/");
+        root.addRoute("/{id}/aaa/");
+        root.addRoute("/{id}/{id}/");
+        root.addRoute("/api/te/{id}/");
+        root.addRoute("/{id/test/");
+        root.addRoute("/apiii/test/");
+        root.addRoute("/test/test/test/");
+        root.addRoute("/test/test/123/");
+        root.addRoute("/test/test/{id}/111/");
+        root.addRoute("/test/test/123/222/");
+        root.addRoute("/test/test/124/{id}/");
+        root.addRoute("/test/test/124/222/");
+
+        FrozenTree tree = root.freeze();
+        Assert.assertEquals("api./{id}/test/", tree.getValue("/123/test/"));
+        Assert.assertEquals("api./api/test/{id}/", tree.getValue("/api/test/123/"));
+        Assert.assertEquals("api./{id}/{id}/", tree.getValue("/123/123/"));
+        Assert.assertEquals("api./{id}/test/", tree.getValue("/test/test/"));
+        Assert.assertEquals("api./test/test/{id}/111/", tree.getValue("/test/test/123/111/"));
+        Assert.assertEquals("api./test/test/124/{id}/", tree.getValue("/test/test/124/22/"));
+
+        String[] paths = {"/{id/test/", "/apiii/test/", "/api/", "/api/te/", "/nothing/", "/", "/a/b/c/d/"};
+        for (String path : paths) {
+            Assert.assertEquals(path, root.getValue(path, new ArrayList<>()).getAssetId(), tree.getValue(path));
+        }
+
+        root.remove("/{id}/test/");
+        Assert.assertEquals("api./{id}/test/", tree.getValue("/test/test/"));
+    }
+
+    @Test
+    public void wideNodeTest() {
+        Node root = new Node();
+        for (char c = 'a'; c <= 'z'; c++) {
+            root.addRoute("/api/v1/" + c + "resource/");
+            root.addRoute("/api/v1/" + c + "resource/{id}/");
+        }
+        root.addRoute("/api/v1/{id}/");
+        root.addRoute("/api/v1/été/");
+
+        FrozenTree tree = root.freeze();
+        for (char c = 'a'; c <= 'z'; c++) {
+            Assert.assertEquals("api./api/v1/" + c + "resource/", tree.getValue("/api/v1/" + c + "resource/"));
+            Assert.assertEquals("api./api/v1/" + c + "resource/{id}/", tree.getValue("/api/v1/" + c + "resource/1/"));
+        }
+        Assert.assertEquals("api./api/v1/{id}/", tree.getValue("/api/v1/zzz/"));
+        Assert.assertEquals("api./api/v1/été/", tree.getValue("/api/v1/été/"));
+    }
+
+    /**
+     * fallback代替回溯栈之后，停留的节点与原来的回溯算法一致
+     */
+    @Test
+    public void fallbackTest() {
+        Random random = new Random(5);
+        String[] segments = {"a", "b", "ab", "s", "p", "{id}", "1", "end"};
+        for (int t = 0; t < 1000; t++) {
+            Node root = new Node();
+            for (int i = 0; i < 30; i++) {
+                root.addRoute(path(random, segments, true));
+            }
+
+            FrozenTree tree = root.freeze();
+            for (int i = 0; i < 30; i++) {
+                String path = path(random, segments, false);
+                Node expected;
+                try {
+                    expected = root.getValue(path, new ArrayList<>());
+                } catch (RuntimeException e) {
+                    continue;
+                }
+
+                int node = tree.find(path);
+                Assert.assertEquals(path, expected.getPath(), tree.getPath(node));
+                Assert.assertEquals(path, expected.getAssetId(), tree.getAssetId(node));
+            }
+        }
+    }
+
+    /**
+     * 每一层都有很多静态兄弟节点和{id}，失败后沿fallback逐层改走路径参数，结果与回溯算法一致
+     */
+    @Test
+    public void pathologicalShapeTest() {
+        Node root = new Node();
+        StringBuilder request = new StringBuilder("/");
+        StringBuilder wildcard = new StringBuilder("/");
+        for (int level = 1; level <= 8; level++) {
+            request.append("s/p/");
+            wildcard.append("{id}/p/");
+            for (int i = 0; i < 16; i++) {
+                root.addRoute(request + "x" + i + "/");
+            }
+        }
+        root.addRoute(wildcard.append("end/").toString());
+
+        FrozenTree tree = root.freeze();
+        for (String path : new String[]{request + "end/", request + "x/", request + "x1/", request.toString()}) {
+            Node expected = root.getValue(path, new ArrayList<>());
+            int node = tree.find(path);
+            Assert.assertEquals(path, expected.getPath(), tree.getPath(node));
+            Assert.assertEquals(path, expected.getAssetId(), tree.getAssetId(node));
+        }
+    }
+
+    private static String path(Random random, String[] segments, boolean route) {
+        StringBuilder path = new StringBuilder("/");
+        String last = "";
+        for (int depth = 1 + random.nextInt(5); depth > 0; depth--) {
+            String segment = segments[random.nextInt(segments.length)];
+            if (segment.equals("{id}") && (!route || last.equals("{id}"))) {
+                // 请求中的路径参数换成具体的值，路由中不生成连续的路径参数
+                segment = route ? "s" : Integer.toString(random.nextInt(3));
+            }
+            path.append(segment).append('/');
+            last = segment;
+        }
+        return path.toString();
+    }
+}
@@ -0,0 +1,83 @@
+package com.gin;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class HitCountersTest {
+    @Test
+    public void countTest() {
+        Node root = new Node();
+        root.addRoute("/api/test/");
+        Assert.assertFalse(HitCounters.isEnabled(root));
+        HitCounters.enable(root);
+
+        // 开启之后新增的节点，包括分裂出来的节点
+        root.addRoute("/api/{id}/");
+        root.addRoute("/api/test/{id}/");
+        root.addRoute("/api/te/");
+
+        for (int i = 0; i < 5; i++) {
+            root.lookup("/api/test/" + i + "/");
+        }
+        for (int i = 0; i < 3; i++) {
+            root.getValue("/api/" + i + "/", new ArrayList<>());
+        }
+        root.lookup("/api/test/");
+        new BatchLookup(root).getValues(Arrays.asList("/api/te/", "/api/te/", "/api/1/"));
+
+        List<RouteHits> top = HitCounters.top(root, 2);
+        Assert.assertEquals(2, top.size());
+        Assert.assertEquals(new RouteHits("/api/test/{id}/", "api./api/test/{id}/", 5), top.get(0));
+        Assert.assertEquals(new RouteHits("/api/{id}/", "api./api/{id}/", 4), top.get(1));
+
+        // 删除/api/test/之后/api/te/和/api/test/{id}/的计数不变
+        root.remove("/api/test/");
+        List<RouteHits> snapshot = HitCounters.snapshot(root, true);
+        Assert.assertEquals(3, snapshot.size());
+        Assert.assertTrue(snapshot.contains(new RouteHits("/api/te/", "api./api/te/", 2)));
+        Assert.assertTrue(snapshot.contains(new RouteHits("/api/test/{id}/", "api./api/test/{id}/", 5)));
+        Assert.assertEquals(0, HitCounters.top(root, 1).get(0).getHits());
+
+        HitCounters.disable(root);
+        root.lookup("/api/te/");
+        Assert.assertTrue(HitCounters.snapshot(root, false).isEmpty());
+    }
+
+    /**
+     * 没有匹配到资产时停留在/a/，但是不计入/a/的命中次数
+     */
+    @Test
+    public void missTest() {
+        ConcurrentRouter router = new ConcurrentRouter();
+        router.addRoute("/a/");
+        router.addRoute("/a/b/");
+        router.addRoute("/c/");
+        Node root = router.snapshot();
+        HitCounters.enable(root);
+        router.enableCache(16);
+
+        Assert.assertEquals("api./a/", root.lookup("/a/c/").getAssetId());
+        Assert.assertEquals("api./a/", root.getValue("/a/c/", new ArrayList<>()).getAssetId());
+        Assert.assertEquals("api./a/", root.lookup("/a/c/".getBytes(StandardCharsets.UTF_8), 0, 5).getAssetId());
+        Assert.assertEquals("api./a/", new BatchLookup(root).getValues(Arrays.asList("/a/c/", "/a/c/")).get(0));
+        for (int i = 0; i < 2; i++) {
+            Assert.assertEquals("api./a/", router.getValue("/a/c/").getAssetId());
+        }
+        for (RouteHits hits : HitCounters.snapshot(root, false)) {
+            Assert.assertEquals(hits.toString(), 0, hits.getHits());
+        }
+
+        // 完全匹配时正常计数，包括缓存命中
+        root.lookup("/a/");
+        new BatchLookup(root).getValues(Arrays.asList("/a/", "/a/"));
+        for (int i = 0; i < 2; i++) {
+            router.getValue("/a/");
+        }
+        Assert.assertEquals(new RouteHits("/a/", "api./a/", 5), HitCounters.top(root, 1).get(0));
+    }
+}
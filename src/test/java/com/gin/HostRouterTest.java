@@ -0,0 +1,143 @@
+package com.gin;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+public class HostRouterTest {
+    private static MethodTrees trees(String path, String assetId) {
+        MethodTrees trees = new MethodTrees();
+        trees.addRoute("GET", path, assetId, null);
+        return trees;
+    }
+
+    @Test
+    public void getTest() {
+        MethodTrees api = trees("/users/{id}/", "api");
+        MethodTrees tenant = trees("/users/{id}/", "tenant");
+        MethodTrees eu = trees("/users/{id}/", "eu");
+        MethodTrees fallback = trees("/health/", "fallback");
+
+        HostRouter router = new HostRouter();
+        router.add("api.example.com", api);
+        router.add("*.tenant.example.com", tenant);
+        router.add("*.eu.tenant.example.com", eu);
+
+        Assert.assertSame(api, router.get("api.example.com"));
+        Assert.assertSame(api, router.get("API.Example.com:8080"));
+        Assert.assertSame(api, router.get("api.example.com."));
+        Assert.assertNull(router.get("example.com"));
+        Assert.assertNull(router.get("xapi.example.com"));
+        Assert.assertNull(router.get("www.api.example.com"));
+
+        Assert.assertSame(tenant, router.get("a.tenant.example.com"));
+        Assert.assertSame(tenant, router.get("a.b.tenant.example.com"));
+        Assert.assertSame(tenant, router.get("eu.tenant.example.com"));
+        Assert.assertSame(eu, router.get("a.eu.tenant.example.com"));
+        Assert.assertNull(router.get("tenant.example.com"));
+        Assert.assertNull(router.get("atenant.example.com"));
+        Assert.assertNull(router.get(""));
+
+        // 精确匹配优先于通配符
+        MethodTrees exact = trees("/", "exact");
+        router.add("b.tenant.example.com", exact);
+        Assert.assertSame(exact, router.get("b.tenant.example.com"));
+        Assert.assertSame(tenant, router.get("c.b.tenant.example.com"));
+
+        router.add("*", fallback);
+        Assert.assertSame(fallback, router.get("example.com"));
+        Assert.assertSame(fallback, router.get("[::1]:8080"));
+        Assert.assertSame(tenant, router.get("a.tenant.example.com"));
+
+        router.remove("*.tenant.example.com");
+        Assert.assertSame(fallback, router.get("a.tenant.example.com"));
+        Assert.assertSame(eu, router.get("a.eu.tenant.example.com"));
+
+        Assert.assertEquals("api", router.getValue("api.example.com", "GET", "/users/1/"));
+        Assert.assertNull(router.getValue("api.example.com", "POST", "/users/1/"));
+
+        for (String host : new String[]{"a.*.example.com", "*example.com", "", "*.", "example.com:80"}) {
+            try {
+                router.add(host, api);
+                Assert.fail(host);
+            } catch (IllegalArgumentException e) {
+                Assert.assertTrue(e.getMessage().contains(host));
+            }
+        }
+    }
+
+    @Test
+    public void ipv6Test() {
+        MethodTrees local = trees("/", "local");
+        HostRouter router = new HostRouter();
+        router.add("[::1]", local);
+        router.add("[2001:DB8::1]", trees("/", "db8"));
+        Assert.assertSame(local, router.get("[::1]"));
+        Assert.assertSame(local, router.get("[::1]:8080"));
+        Assert.assertEquals("db8", router.getValue("[2001:db8::1]:443", "GET", "/"));
+        Assert.assertNull(router.get("[::2]"));
+
+        for (String host : new String[]{"[::1]:8080", "*.[::1]", "::1", "[]"}) {
+            try {
+                router.add(host, local);
+                Assert.fail(host);
+            } catch (IllegalArgumentException e) {
+                Assert.assertTrue(e.getMessage().contains(host));
+            }
+        }
+    }
+
+    /**
+     * 删除不存在的host时不复制节点，也不发布新的根节点
+     */
+    @Test
+    public void removeTest() throws Exception {
+        Field field = HostRouter.class.getDeclaredField("root");
+        field.setAccessible(true);
+        MethodTrees api = trees("/", "api");
+        HostRouter router = new HostRouter();
+        router.add("api.example.com", api);
+        router.add("*.example.com", api);
+
+        Object root = field.get(router);
+        for (String host : new String[]{"example.com", "pi.example.com", "www.api.example.com", "*.api.example.com", "*", "com"}) {
+            router.remove(host);
+            Assert.assertSame(host, root, field.get(router));
+        }
+        Assert.assertSame(api, router.get("api.example.com"));
+
+        router.remove("api.example.com");
+        Assert.assertNotSame(root, field.get(router));
+        Assert.assertSame(api, router.get("api.example.com"));
+        router.remove("*.example.com");
+        Assert.assertNull(router.get("api.example.com"));
+
+        root = field.get(router);
+        router.remove("api.example.com");
+        Assert.assertSame(root, field.get(router));
+    }
+
+    @Test
+    public void scaleTest() {
+        HostRouter router = new HostRouter();
+        List<MethodTrees> all = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            MethodTrees trees = new MethodTrees();
+            all.add(trees);
+            router.add((i % 2 == 0 ? "*.t" : "api.t") + i + ".example.com", trees);
+        }
+
+        for (int i = 0; i < 20000; i++) {
+            if (i % 2 == 0) {
+                Assert.assertSame(all.get(i), router.get("x.y.t" + i + ".example.com"));
+                Assert.assertNull(router.get("t" + i + ".example.com"));
+            } else {
+                Assert.assertSame(all.get(i), router.get("api.t" + i + ".example.com"));
+                Assert.assertNull(router.get("x.api.t" + i + ".example.com"));
+            }
+        }
+    }
+}
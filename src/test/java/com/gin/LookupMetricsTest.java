@@ -0,0 +1,116 @@
+package com.gin;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class LookupMetricsTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @After
+    public void tearDown() {
+        LookupMetrics.disable();
+        LookupMetrics.reset();
+    }
+
+    private static Node tree() {
+        Node root = new Node();
+        root.addRoute("/{id}/test/");
+        root.addRoute("/test/test/{id}/111/");
+        root.addRoute("/test/test/123/222/");
+        return root;
+    }
+
+    @Test
+    public void snapshotTest() {
+        Node root = tree();
+        LookupMetrics.reset();
+        root.lookup("/test/test/");
+        Assert.assertEquals(0, LookupMetrics.snapshot().getLookups());
+
+        LookupMetrics.enable();
+        // 先进入静态的test/，失败后回溯到根节点的路径参数子节点
+        Assert.assertEquals("api./{id}/test/", root.lookup("/test/test/").getAssetId());
+        byte[] bytes = "/test/test/123/111/".getBytes(StandardCharsets.UTF_8);
+        Assert.assertEquals("api./test/test/{id}/111/", root.lookup(bytes, 0, bytes.length).getAssetId());
+        Assert.assertNull(root.lookup("/nothing/", new Params()).getAssetId());
+
+        LookupStats stats = LookupMetrics.snapshot();
+        Assert.assertEquals(3, stats.getLookups());
+        Assert.assertEquals(2, stats.getHits());
+        Assert.assertEquals(1, stats.getMisses());
+        Assert.assertTrue(stats.getBacktracks() >= 2);
+        Assert.assertTrue(stats.getSkippedPushes() >= stats.getBacktracks());
+        Assert.assertTrue(stats.getMaxSkippedDepth() >= 1);
+        Assert.assertTrue(stats.getNodesVisited() > 3);
+        Assert.assertTrue(stats.getLatencyPercentile(0.5) > 0);
+        Assert.assertTrue(stats.getLatencyPercentile(1) >= stats.getLatencyPercentile(0.5));
+
+        LookupMetrics.disable();
+        root.lookup("/test/test/");
+        Assert.assertEquals(3, LookupMetrics.snapshot().getLookups());
+        // 关闭之后查询不再更新回溯栈中的计数器
+        SkippedNodeStack stack = SkippedNodeStack.last();
+        Assert.assertFalse(stack.counting);
+        Assert.assertEquals(0, stack.visited);
+        Assert.assertEquals(0, stack.pushed);
+        Assert.assertEquals(0, stack.backtracked);
+        Assert.assertEquals(0, stack.maxDepth);
+        LookupMetrics.reset();
+        Assert.assertEquals(0, LookupMetrics.snapshot().getLookups());
+        Assert.assertEquals(0, LookupMetrics.snapshot().getLatencyPercentile(0.99));
+    }
+
+    @Test
+    public void jfrTest() throws Exception {
+        // 测试时类路径是target/classes目录而不是jar，需要手动加载META-INF/versions/11中的事件类
+        File classes = new File(LookupMetrics.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        URL[] urls = {new File(classes, "META-INF/versions/11").toURI().toURL(), classes.toURI().toURL()};
+        Path file = folder.getRoot().toPath().resolve("lookup.jfr");
+        try (URLClassLoader loader = new URLClassLoader(urls, ClassLoader.getPlatformClassLoader())) {
+            Class<?> node = loader.loadClass(Node.class.getName());
+            Object root = node.getConstructor().newInstance();
+            Method addRoute = node.getMethod("addRoute", String.class);
+            Method lookup = node.getMethod("lookup", String.class);
+            addRoute.invoke(root, "/{id}/test/");
+            addRoute.invoke(root, "/test/test/{id}/111/");
+            addRoute.invoke(root, "/test/test/123/222/");
+            loader.loadClass(LookupMetrics.class.getName()).getMethod("enable").invoke(null);
+
+            try (Recording recording = new Recording()) {
+                recording.enable("com.gin.Lookup");
+                recording.start();
+                lookup.invoke(root, "/test/test/");
+                lookup.invoke(root, "/nothing/");
+                recording.stop();
+                recording.dump(file);
+            }
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals("com.gin.Lookup"))
+                .collect(Collectors.toList());
+        Assert.assertEquals(2, events.size());
+        RecordedEvent event = events.get(0);
+        Assert.assertEquals("/test/test/", event.getString("path"));
+        Assert.assertEquals("api./{id}/test/", event.getString("assetId"));
+        Assert.assertTrue(event.getBoolean("hit"));
+        Assert.assertTrue(event.getInt("backtracks") >= 1);
+        Assert.assertFalse(events.get(1).getBoolean("hit"));
+    }
+}
@@ -0,0 +1,54 @@
+package com.gin;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class MethodTreesTest {
+    @Test
+    public void parseTest() {
+        for (HttpMethod method : HttpMethod.values()) {
+            byte[] bytes = (" " + method.name() + " ").getBytes(StandardCharsets.US_ASCII);
+            Assert.assertEquals(method, HttpMethod.parse(method.name()));
+            Assert.assertEquals(method, HttpMethod.parse(bytes, 1, bytes.length - 1));
+        }
+
+        String[] customs = {"", "get", "GOT", "PURGE", "PROPFIND", "PATCHX", "P"};
+        for (String custom : customs) {
+            byte[] bytes = custom.getBytes(StandardCharsets.US_ASCII);
+            Assert.assertNull(custom, HttpMethod.parse(custom));
+            Assert.assertNull(custom, HttpMethod.parse(bytes, 0, bytes.length));
+        }
+    }
+
+    @Test
+    public void getValueTest() {
+        Node get = new Node();
+        get.addRoute("/{id}/test/", "get");
+        Node post = new Node();
+        post.addRoute("/api/{id}/", "post");
+        Node purge = new Node();
+        purge.addRoute("/cache/{id}/", "purge");
+
+        MethodTrees trees = new MethodTrees(new ArrayList<>(Arrays.asList(new MethodTree("GET", get), new MethodTree("POST", post))));
+        trees.add(new MethodTree("PURGE", purge));
+
+        Assert.assertSame(get, trees.get("GET"));
+        Assert.assertSame(purge, trees.get("PURGE"));
+        Assert.assertNull(trees.get("PUT"));
+        Assert.assertNull(trees.get("PROPFIND"));
+
+        Assert.assertEquals("get", trees.getValue("GET", "/123/test/"));
+        Assert.assertEquals("post", trees.getValue(HttpMethod.POST, "/api/123/"));
+        Assert.assertEquals("purge", trees.getValue("PURGE", "/cache/123/"));
+        Assert.assertNull(trees.getValue("PUT", "/123/test/"));
+
+        byte[] request = "PURGE /cache/123/ HTTP/1.1".getBytes(StandardCharsets.UTF_8);
+        Assert.assertEquals("purge", trees.getValue(request, 0, 5, request, 6, 17));
+        request = "POST /api/123/ HTTP/1.1".getBytes(StandardCharsets.UTF_8);
+        Assert.assertEquals("post", trees.getValue(request, 0, 4, request, 5, 14));
+    }
+}
@@ -0,0 +1,44 @@
+package com.gin;
+
+import com.gin.util.Mismatch;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Random;
+
+public class MismatchTest {
+    @Test
+    public void commonPrefixTest() throws Exception {
+        // 测试时类路径是target/classes目录而不是jar，需要手动加载META-INF/versions/9中的实现
+        File classes = new File(Mismatch.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        File versioned = new File(classes, "META-INF/versions/9");
+        Assert.assertTrue(new File(versioned, "com/gin/util/Mismatch.class").isFile());
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{versioned.toURI().toURL(), classes.toURI().toURL()}, null)) {
+            Method java9 = loader.loadClass(Mismatch.class.getName())
+                    .getMethod("commonPrefix", byte[].class, int.class, int.class, byte[].class, int.class, int.class);
+
+            Random random = new Random(1);
+            for (int i = 0; i < 10000; i++) {
+                byte[] a = new byte[random.nextInt(80)];
+                byte[] b = new byte[random.nextInt(80)];
+                random.nextBytes(a);
+                // 大部分情况下有较长的公共前缀
+                int shared = Math.min(a.length, b.length) == 0 ? 0 : random.nextInt(Math.min(a.length, b.length) + 1);
+                int aFrom = a.length == 0 ? 0 : random.nextInt(a.length - shared + 1);
+                int bFrom = b.length == 0 ? 0 : random.nextInt(b.length - shared + 1);
+                random.nextBytes(b);
+                System.arraycopy(a, aFrom, b, bFrom, shared);
+                int aTo = aFrom + random.nextInt(a.length - aFrom + 1);
+                int bTo = bFrom + random.nextInt(b.length - bFrom + 1);
+
+                int expected = Mismatch.commonPrefix(a, aFrom, aTo, b, bFrom, bTo);
+                Assert.assertEquals(expected, java9.invoke(null, a, aFrom, aTo, b, bFrom, bTo));
+                Assert.assertTrue(expected >= Math.min(shared, Math.min(aTo - aFrom, bTo - bFrom)));
+            }
+        }
+    }
+}
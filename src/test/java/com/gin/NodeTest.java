@@ -4,7 +4,11 @@ import lombok.extern.slf4j.Slf4j;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 
 @Slf4j
 public class NodeTest {
@@ -253,4 +257,219 @@ public class NodeTest {
         root.remove("/test/test/111/");
         Assert.assertEquals("/test/test/1", root.getPath());
     }
+
+    @Test
+    public void getValueWithStackTest() {
+        Node root = new Node();
+        root.addRoute("/{id}/test/");
+        root.addRoute("/api/test/{id}/");
+        root.addRoute("/{id}/aaa/");
+        root.addRoute("/{id}/{id}/");
+        root.addRoute("/api/te/{id}/");
+        root.addRoute("/{id/test/");
+        root.addRoute("/apiii/test/");
+        root.addRoute("/test/test/test/");
+        root.addRoute("/test/test/123/");
+        root.addRoute("/test/test/{id}/111/");
+        root.addRoute("/test/test/123/222/");
+        root.addRoute("/test/test/124/{id}/");
+        root.addRoute("/test/test/124/222/");
+
+        String[] paths = {
+                "/123/test/", "/api/test/123/", "/123/aaa/", "/123/123/", "/{id/test/", "/apiii/test/",
+                "/test/test/", "/test/test/123/111/", "/test/test/124/22/", "/test/test/124/222/",
+                "/api/", "/api/te/1/", "/api/te/", "/nothing/", "/", "/a/b/c/d/"
+        };
+
+        SkippedNodeStack stack = new SkippedNodeStack(1);
+        for (String path : paths) {
+            Node expected = root.getValue(path, new ArrayList<>());
+            Node actual = root.getValue(path, stack);
+            Assert.assertEquals(path, expected.getAssetId(), actual.getAssetId());
+            Assert.assertEquals(path, expected.getPath(), actual.getPath());
+            Assert.assertEquals(path, expected.getAssetId(), root.lookup(path).getAssetId());
+        }
+    }
+
+    @Test
+    public void wideNodeTest() {
+        // 子节点较多时使用ASCII表，非ASCII首字母二分查找
+        Node root = new Node();
+        String[] resources = {"users", "orders", "items", "carts", "payments", "refunds", "reviews", "tags", "zones", "地址", "ёлка"};
+        for (String resource : resources) {
+            root.addRoute("/api/v1/" + resource + "/");
+            root.addRoute("/api/v1/" + resource + "/{id}/");
+        }
+        root.addRoute("/api/v1/{id}/");
+
+        for (String resource : resources) {
+            Assert.assertEquals("api./api/v1/" + resource + "/", root.lookup("/api/v1/" + resource + "/").getAssetId());
+            Assert.assertEquals("api./api/v1/" + resource + "/{id}/", root.lookup("/api/v1/" + resource + "/1/").getAssetId());
+        }
+        Assert.assertEquals("api./api/v1/{id}/", root.lookup("/api/v1/other/").getAssetId());
+
+        // 删除和合并之后索引仍然和children一致
+        root.remove("/api/v1/orders/");
+        root.remove("/api/v1/orders/{id}/");
+        root.remove("/api/v1/地址/{id}/");
+        Assert.assertEquals("api./api/v1/{id}/", root.lookup("/api/v1/orders/").getAssetId());
+        Assert.assertEquals("api./api/v1/地址/", root.lookup("/api/v1/地址/").getAssetId());
+        Assert.assertEquals("api./api/v1/ёлка/{id}/", root.lookup("/api/v1/ёлка/1/").getAssetId());
+        Assert.assertEquals("api./api/v1/tags/", root.lookup("/api/v1/tags/").getAssetId());
+        Assert.assertEquals("api./api/v1/{id}/", root.lookup("/api/v1/ttt/").getAssetId());
+    }
+
+    @Test
+    public void getValueWithParamsTest() {
+        // 路径参数都被认为是{id}
+        Node root = new Node();
+        root.addRoute("/{id}/test/");
+        root.addRoute("/{id}/{id}/");
+        root.addRoute("/api/test/{id}/");
+        root.addRoute("/test/test/123/");
+        root.addRoute("/test/test/{id}/111/");
+        root.addRoute("/test/test/123/222/");
+
+        Params params = new Params();
+        Assert.assertEquals("api./{id}/test/", root.lookup("/123/test/", params).getAssetId());
+        Assert.assertEquals(Collections.singletonList(new Param("id", "123")), params.toList());
+
+        Assert.assertEquals("api./{id}/{id}/", root.lookup("/123/abc/", params).getAssetId());
+        Assert.assertEquals(Arrays.asList(new Param("id", "123"), new Param("id", "abc")), params.toList());
+        Assert.assertEquals("123", params.get("id"));
+        Assert.assertEquals("", params.byName("name"));
+
+        Assert.assertEquals("api./api/test/{id}/", root.lookup("/api/test/9/", params).getAssetId());
+        Assert.assertEquals(1, params.size());
+        Assert.assertEquals("9", params.get("id"));
+        Assert.assertEquals(10, params.valueStart(0));
+        Assert.assertEquals(11, params.valueEnd(0));
+
+        // 回溯之后只保留最终匹配路径上的参数
+        Assert.assertEquals("api./test/test/{id}/111/", root.lookup("/test/test/123/111/", params).getAssetId());
+        Assert.assertEquals(Collections.singletonList(new Param("id", "123")), params.toList());
+
+        Assert.assertEquals("api./{id}/test/", root.lookup("/test/test/", params).getAssetId());
+        Assert.assertEquals(Collections.singletonList(new Param("id", "test")), params.toList());
+
+        Assert.assertEquals("api./test/test/123/", root.lookup("/test/test/123/", params).getAssetId());
+        Assert.assertEquals(0, params.size());
+    }
+
+    @Test
+    public void getValueBytesTest() {
+        Node root = new Node();
+        root.addRoute("/{id}/test/");
+        root.addRoute("/api/test/{id}/");
+        root.addRoute("/{id}/{id}/");
+        root.addRoute("/api/te/{id}/");
+        root.addRoute("/apiii/test/");
+        root.addRoute("/test/test/{id}/111/");
+        root.addRoute("/test/test/123/222/");
+        root.addRoute("/资产/{id}/");
+        root.addRoute("/资源/详情/");
+        root.addRoute("/é/");
+        root.addRoute("/è/{id}/");
+
+        String[] paths = {
+                "/123/test/", "/api/test/123/", "/123/123/", "/test/test/", "/test/test/123/111/", "/api/te/",
+                "/资产/1/", "/资源/详情/", "/资源/x/", "/é/", "/è/1/", "/è/", "/nothing/"
+        };
+
+        SkippedNodeStack stack = new SkippedNodeStack();
+        for (String path : paths) {
+            String expected = root.getValue(path, new ArrayList<>()).getAssetId();
+            byte[] bytes = ("GET " + path + " HTTP/1.1").getBytes(StandardCharsets.UTF_8);
+            int from = 4;
+            int to = bytes.length - " HTTP/1.1".length();
+            Assert.assertEquals(path, expected, root.getValue(bytes, from, to, stack).getAssetId());
+
+            ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+            direct.put(bytes).position(from).limit(to);
+            Assert.assertEquals(path, expected, root.lookup(direct).getAssetId());
+            Assert.assertEquals(from, direct.position());
+
+            ByteBuffer heap = ByteBuffer.wrap(bytes, from, to - from).slice();
+            Assert.assertEquals(path, expected, root.lookup(heap).getAssetId());
+        }
+    }
+
+    @Test
+    public void typedParamTest() {
+        Node root = new Node();
+        root.addRoute("/users/{id:int}/");
+        root.addRoute("/users/{id:int}/orders/");
+        root.addRoute("/users/me/");
+        root.addRoute("/files/{name:len(1,3)}/");
+        root.addRoute("/keys/{key:uuid}/");
+        root.addRoute("/keys/{key:uuid}/a/");
+        root.addRoute("/keys/abc/");
+
+        Params params = new Params();
+        Assert.assertEquals("api./users/{id:int}/", root.lookup("/users/42/", params).getAssetId());
+        Assert.assertEquals(Collections.singletonList(new Param("id", "42")), params.toList());
+        Assert.assertEquals("42", params.get("id"));
+        Assert.assertEquals("api./users/{id:int}/orders/", root.lookup("/users/42/orders/").getAssetId());
+        Assert.assertEquals("api./users/me/", root.lookup("/users/me/").getAssetId());
+        Assert.assertNull(root.lookup("/users/abc/").getAssetId());
+        Assert.assertNull(root.lookup("/users/4a/orders/").getAssetId());
+
+        Assert.assertEquals("api./files/{name:len(1,3)}/", root.lookup("/files/资产/", params).getAssetId());
+        Assert.assertEquals("资产", params.get("name"));
+        Assert.assertNull(root.lookup("/files/abcd/").getAssetId());
+
+        String uuid = "123e4567-e89b-12d3-a456-426614174000";
+        Assert.assertEquals("api./keys/{key:uuid}/a/", root.lookup("/keys/" + uuid + "/a/").getAssetId());
+        Assert.assertEquals("api./keys/abc/", root.lookup("/keys/abc/").getAssetId());
+
+        // 所有查询方式的结果一致
+        FrozenTree frozen = root.freeze();
+        Node built = TreeBuilder.build(Arrays.asList(
+                new NodeValue("/users/{id:int}/", "api./users/{id:int}/"),
+                new NodeValue("/users/{id:int}/orders/", "api./users/{id:int}/orders/"),
+                new NodeValue("/users/me/", "api./users/me/"),
+                new NodeValue("/files/{name:len(1,3)}/", "api./files/{name:len(1,3)}/"),
+                new NodeValue("/keys/{key:uuid}/", "api./keys/{key:uuid}/"),
+                new NodeValue("/keys/{key:uuid}/a/", "api./keys/{key:uuid}/a/"),
+                new NodeValue("/keys/abc/", "api./keys/abc/")
+        ));
+        String[] paths = {
+                "/users/42/", "/users/42/orders/", "/users/me/", "/users/abc/", "/users/4a/orders/", "/files/资产/",
+                "/files/abcd/", "/keys/" + uuid + "/a/", "/keys/abc/", "/keys/abc/a/", "/keys/" + uuid + "/"
+        };
+        for (String path : paths) {
+            String expected = root.getValue(path, new ArrayList<>()).getAssetId();
+            byte[] bytes = path.getBytes(StandardCharsets.UTF_8);
+            Assert.assertEquals(path, expected, root.lookup(bytes, 0, bytes.length).getAssetId());
+            Assert.assertEquals(path, expected, frozen.getValue(path));
+            Assert.assertEquals(path, expected, built.lookup(path).getAssetId());
+        }
+    }
+
+    @Test
+    public void wildcardTest() {
+        Node root = new Node();
+        root.addRoute("/{ia/");
+        root.addRoute("/a/{id}/b/{name}/");
+        Assert.assertEquals("api./{ia/", root.lookup("/{ia/").getAssetId());
+
+        Params params = new Params();
+        Assert.assertEquals("api./a/{id}/b/{name}/", root.lookup("/a/1/b/x/", params).getAssetId());
+        Assert.assertEquals("1", params.get("id"));
+        Assert.assertEquals("x", params.get("name"));
+        Assert.assertEquals("name", params.key(1));
+
+        // 同一个位置只能有一个路径参数
+        String[] invalid = {"/a/{ID}/x/", "/a/{id:int}/", "/b/{}/", "/b/{:int}/", "/b/{a-b}/", "/b/{id:float}/", "/b/{id:len(3,1)}/"};
+        for (String path : invalid) {
+            try {
+                root.addRoute(path);
+                Assert.fail(path);
+            } catch (AssertionError e) {
+                throw e;
+            } catch (Throwable e) {
+                Assert.assertTrue(path, e.getMessage().contains(path));
+            }
+        }
+    }
 }
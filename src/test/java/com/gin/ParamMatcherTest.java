@@ -0,0 +1,47 @@
+package com.gin;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+public class ParamMatcherTest {
+    @Test
+    public void matchesTest() {
+        Assert.assertNull(ParamMatcher.parse("{id}/"));
+        assertMatches("{id:int}/", new String[]{"0", "123"}, new String[]{"", "-1", "1a", "１"});
+        assertMatches("{id:hex}/", new String[]{"ff", "0A9"}, new String[]{"", "fg", "0x1"});
+        assertMatches("{id:uuid}/", new String[]{"123e4567-e89b-12d3-a456-426614174000"},
+                new String[]{"123e4567e89b12d3a456426614174000", "123e4567-e89b-12d3-a456-42661417400g"});
+        assertMatches("{id:len(2,3)}/", new String[]{"ab", "资产", "a资产"}, new String[]{"a", "abcd", "资产资产"});
+        assertMatches("{id:len(0)}/", new String[]{""}, new String[]{"a"});
+
+        String[] invalid = {"{id:}/", "{id:float}/", "{id:len()}/", "{id:len(2,1)}/", "{id:len(1,2,3)}/", "{id:len(-1)}/"};
+        for (String wildcard : invalid) {
+            try {
+                ParamMatcher.parse(wildcard);
+                Assert.fail(wildcard);
+            } catch (IllegalArgumentException e) {
+                Assert.assertTrue(e.getMessage().contains(wildcard));
+            }
+            Assert.assertNull(ParamMatcher.of(wildcard));
+        }
+    }
+
+    private static void assertMatches(String wildcard, String[] accepted, String[] rejected) {
+        ParamMatcher matcher = ParamMatcher.parse(wildcard);
+        SkippedNodeStack stack = new SkippedNodeStack();
+        for (String value : accepted) {
+            String path = "/" + value + "/";
+            Assert.assertTrue(value, matcher.matches(path, 1, path.length() - 1));
+            byte[] bytes = path.getBytes(StandardCharsets.UTF_8);
+            Assert.assertTrue(value, matcher.matches(stack.wrap(bytes, 0, bytes.length), 1, bytes.length - 1));
+        }
+        for (String value : rejected) {
+            String path = "/" + value + "/";
+            Assert.assertFalse(value, matcher.matches(path, 1, path.length() - 1));
+            byte[] bytes = path.getBytes(StandardCharsets.UTF_8);
+            Assert.assertFalse(value, matcher.matches(stack.wrap(bytes, 0, bytes.length), 1, bytes.length - 1));
+        }
+    }
+}
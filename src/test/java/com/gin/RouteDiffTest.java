@@ -0,0 +1,106 @@
+package com.gin;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class RouteDiffTest {
+    @Test
+    public void diffTest() {
+        Node root = new Node();
+        root.addRoute("/api/test/{id}/", "a");
+        root.addRoute("/api/te/", "b");
+        root.addRoute("/api/user/", "c");
+
+        RouteDiff diff = RouteDiff.of(root, Arrays.asList(
+                new NodeValue("/api/test/{id}/", "a"),
+                new NodeValue("/api/te/", "b2"),
+                new NodeValue("/api/order/", "d")));
+        Assert.assertEquals(Collections.singletonList(new NodeValue("/api/order/", "d")), diff.getAdded());
+        Assert.assertEquals(Collections.singletonList(new NodeValue("/api/te/", "b2")), diff.getChanged());
+        Assert.assertEquals(Collections.singletonList("/api/user/"), diff.getRemoved());
+
+        root.apply(diff);
+        Assert.assertEquals("a", root.lookup("/api/test/1/").getAssetId());
+        Assert.assertEquals("b2", root.lookup("/api/te/").getAssetId());
+        Assert.assertEquals("d", root.lookup("/api/order/").getAssetId());
+        Assert.assertNull(root.lookup("/api/user/").getAssetId());
+        Assert.assertTrue(RouteDiff.of(root, Arrays.asList(
+                new NodeValue("/api/test/{id}/", "a"),
+                new NodeValue("/api/te/", "b2"),
+                new NodeValue("/api/order/", "d"))).isEmpty());
+    }
+
+    /**
+     * 批量应用之后的树与依次调用addRoute和remove得到的树结构相同
+     */
+    @Test
+    public void sameAsSequentialTest() {
+        Random random = new Random(3);
+        String[] segments = {"a", "b", "ab", "test", "{id}", "1", "c"};
+        for (int t = 0; t < 500; t++) {
+            List<String> pool = new ArrayList<>();
+            for (int i = 0; i < 25; i++) {
+                StringBuilder path = new StringBuilder("/");
+                String last = "";
+                for (int k = 1 + random.nextInt(3); k > 0; k--) {
+                    String segment = segments[random.nextInt(segments.length)];
+                    if (segment.equals("{id}") && last.equals("{id}")) {
+                        segment = "x";
+                    }
+                    path.append(segment).append('/');
+                    last = segment;
+                }
+                pool.add(path.toString());
+            }
+
+            Node sequential = new Node();
+            ConcurrentRouter router = new ConcurrentRouter();
+            List<NodeValue> desired = new ArrayList<>();
+            for (String path : pool) {
+                if (random.nextBoolean()) {
+                    sequential.addRoute(path, "v1");
+                    router.addRoute(path, "v1");
+                }
+                if (random.nextBoolean()) {
+                    desired.add(new NodeValue(path, random.nextBoolean() ? "v1" : "v2"));
+                }
+            }
+
+            Node before = router.snapshot();
+            String beforeDump = dump(before);
+            RouteDiff diff = router.sync(desired);
+            for (NodeValue route : diff.getAdded()) {
+                sequential.addRoute(route.getFullPath(), route.getAssetId());
+            }
+            for (NodeValue route : diff.getChanged()) {
+                sequential.addRoute(route.getFullPath(), route.getAssetId());
+            }
+            diff.getRemoved().forEach(sequential::remove);
+
+            Assert.assertEquals(dump(sequential), dump(router.snapshot()));
+            Assert.assertEquals(beforeDump, dump(before));
+            Assert.assertTrue(RouteDiff.of(router.snapshot(), desired).isEmpty());
+        }
+    }
+
+    private static String dump(Node n) {
+        StringBuilder sb = new StringBuilder();
+        dump(n, 0, sb);
+        return sb.toString();
+    }
+
+    private static void dump(Node n, int depth, StringBuilder sb) {
+        sb.append(depth).append('[').append(n.getPath()).append(']').append(n.getNType()).append(n.getAssetId()).append('\n');
+        List<Node> children = new ArrayList<>(n.getChildren());
+        children.sort((a, b) -> a.getPath().compareTo(b.getPath()));
+        for (Node child : children) {
+            dump(child, depth + 1, sb);
+        }
+    }
+}
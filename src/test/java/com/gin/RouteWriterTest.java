@@ -0,0 +1,84 @@
+package com.gin;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+public class RouteWriterTest {
+    @Test
+    public void concurrentProducersTest() throws Exception {
+        ConcurrentRouter router = new ConcurrentRouter();
+        List<NodeValue> expected = new ArrayList<>();
+        try (RouteWriter writer = new RouteWriter(router)) {
+            List<Thread> producers = new ArrayList<>();
+            List<List<CompletableFuture<Void>>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                String service = "/service" + t;
+                List<CompletableFuture<Void>> own = new ArrayList<>();
+                futures.add(own);
+                producers.add(new Thread(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        String path = service + "/items" + i + "/{id}/";
+                        own.add(writer.addRoute(path));
+                        // 同一个url先加后删，合并之后只剩删除
+                        if (i % 3 == 0) {
+                            own.add(writer.remove(path));
+                        }
+                    }
+                }));
+                for (int i = 0; i < 1000; i++) {
+                    if (i % 3 != 0) {
+                        String path = service + "/items" + i + "/{id}/";
+                        expected.add(new NodeValue(path, "api." + path));
+                    }
+                }
+            }
+            for (Thread producer : producers) {
+                producer.start();
+            }
+            for (Thread producer : producers) {
+                producer.join();
+            }
+
+            for (List<CompletableFuture<Void>> own : futures) {
+                CompletableFuture.allOf(own.toArray(new CompletableFuture[0])).get();
+            }
+            Assert.assertTrue(RouteDiff.of(router.snapshot(), expected).isEmpty());
+            Assert.assertEquals("api./service1/items1/{id}/", router.getValue("/service1/items1/7/").getAssetId());
+            Assert.assertNull(router.getValue("/service1/items3/7/").getAssetId());
+        }
+    }
+
+    @Test
+    public void failureTest() throws Exception {
+        ConcurrentRouter router = new ConcurrentRouter();
+        RouteWriter writer = new RouteWriter(router);
+        CompletableFuture<Void> first = writer.addRoute("/a/{id}/");
+        CompletableFuture<Void> conflict = writer.addRoute("/a/{name}/");
+        CompletableFuture<Void> other = writer.addRoute("/b/");
+
+        first.get();
+        other.get();
+        try {
+            conflict.get();
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause().getMessage().contains("/a/{name}/"));
+        }
+        Assert.assertEquals("api./a/{id}/", router.getValue("/a/1/").getAssetId());
+        Assert.assertEquals("api./b/", router.getValue("/b/").getAssetId());
+
+        writer.close();
+        try {
+            writer.addRoute("/c/").get();
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        Assert.assertNull(router.getValue("/c/").getAssetId());
+    }
+}
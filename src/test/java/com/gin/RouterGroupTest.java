@@ -0,0 +1,141 @@
+package com.gin;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class RouterGroupTest {
+    private static HandlersFunc log(List<String> calls, String name) {
+        return c -> {
+            calls.add(name);
+            c.next();
+            calls.add("/" + name);
+        };
+    }
+
+    @Test
+    public void handleTest() {
+        List<String> calls = new ArrayList<>();
+        MethodTrees trees = new MethodTrees();
+        RouterGroup engine = new RouterGroup(trees).use(log(calls, "logger"));
+        RouterGroup api = engine.group("/api", log(calls, "auth"));
+        api.handle("GET", "/users/{id:int}", c -> calls.add("user " + c.param("id")));
+        api.handle("GET", "/users/me/", "me", c -> calls.add("me"));
+        // 注册之后添加的中间件不影响已有的路由
+        api.use(log(calls, "late"));
+        api.handle("POST", "users", c -> calls.add("create"));
+
+        Context c = new Context();
+        Assert.assertTrue(trees.handle("GET", "/api/users/7/", c));
+        Assert.assertEquals("api./api/users/{id:int}/", c.getAssetId());
+        Assert.assertEquals(3, c.getHandlers().size());
+        Assert.assertEquals(Arrays.asList("logger", "auth", "user 7", "/auth", "/logger"), calls);
+
+        calls.clear();
+        Assert.assertTrue(trees.handle("POST", "/api/users/", c));
+        Assert.assertEquals(Arrays.asList("logger", "auth", "late", "create", "/late", "/auth", "/logger"), calls);
+
+        calls.clear();
+        Assert.assertTrue(trees.handle("GET", "/api/users/me/", c));
+        Assert.assertEquals("me", c.getAssetId());
+        Assert.assertEquals("", c.param("id"));
+
+        calls.clear();
+        Assert.assertFalse(trees.handle("GET", "/api/users/abc/", c));
+        Assert.assertFalse(trees.handle("GET", "/api/", c));
+        Assert.assertFalse(trees.handle("DELETE", "/api/users/7/", c));
+        Assert.assertTrue(calls.isEmpty());
+    }
+
+    @Test
+    public void abortTest() {
+        List<String> calls = new ArrayList<>();
+        MethodTrees trees = new MethodTrees();
+        RouterGroup engine = new RouterGroup(trees).use(log(calls, "logger"), c -> {
+            if (c.param("id").equals("0")) {
+                c.abort();
+                return;
+            }
+            c.set("user", Integer.valueOf(c.param("id")));
+        });
+        engine.handle("GET", "/users/{id}/", c -> calls.add("user " + c.get("user")));
+
+        Context c = new Context();
+        Assert.assertTrue(trees.handle("GET", "/users/0/", c));
+        Assert.assertTrue(c.isAborted());
+        Assert.assertEquals(Arrays.asList("logger", "/logger"), calls);
+
+        calls.clear();
+        Assert.assertTrue(trees.handle("GET", "/users/5/", c));
+        Assert.assertFalse(c.isAborted());
+        Assert.assertEquals(Arrays.asList("logger", "user 5", "/logger"), calls);
+
+        HandlersFunc[] many = new HandlersFunc[HandlersChain.ABORT_INDEX];
+        try {
+            HandlersChain.of(many);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().contains("too many handlers"));
+        }
+    }
+
+    @Test
+    public void nodeTest() {
+        // 处理函数和资产一起随节点分裂、合并、删除和复制
+        HandlersChain a = HandlersChain.of(c -> { });
+        HandlersChain b = HandlersChain.of(c -> { });
+        Node root = new Node();
+        root.addRoute("/test/abc/", "abc", a);
+        root.addRoute("/test/", "test", b);
+        Assert.assertSame(b, root.lookup("/test/").getHandlers());
+        Assert.assertSame(a, root.lookup("/test/abc/").getHandlers());
+
+        ConcurrentRouter router = new ConcurrentRouter(root);
+        router.remove("/test/");
+        Assert.assertSame(a, router.getValue("/test/abc/").getHandlers());
+        Assert.assertSame(b, root.lookup("/test/").getHandlers());
+        Assert.assertNull(router.snapshot().getHandlers());
+
+        router.addRoute("/test/abc/", "abc", null);
+        Assert.assertNull(router.getValue("/test/abc/").getHandlers());
+        Assert.assertSame(a, new TreeCompactor().compact(root).lookup("/test/abc/").getHandlers());
+    }
+
+    /**
+     * 只修改资产ID的重新注册不能清除处理函数
+     */
+    @Test
+    public void reRegisterTest() throws Exception {
+        MethodTrees trees = new MethodTrees();
+        HandlersChain users = HandlersChain.of(c -> { });
+        trees.addRoute("GET", "/users/{id}/", "user", users);
+        trees.addRoute("GET", "/users/me/", "me", HandlersChain.of(c -> { }));
+
+        Node root = trees.get("GET");
+        root.addRoute("/users/{id}/", "user2");
+        Context c = new Context();
+        Assert.assertTrue(trees.handle("GET", "/users/7/", c));
+        Assert.assertEquals("user2", c.getAssetId());
+        Assert.assertSame(users, c.getHandlers());
+
+        ConcurrentRouter router = new ConcurrentRouter(root);
+        router.sync(Arrays.asList(new NodeValue("/users/{id}/", "user3"), new NodeValue("/users/me/", "me")));
+        Assert.assertEquals("user3", router.getValue("/users/7/").getAssetId());
+        Assert.assertSame(users, router.getValue("/users/7/").getHandlers());
+
+        router.addRoute("/users/{id}/", "user4");
+        Assert.assertSame(users, router.getValue("/users/7/").getHandlers());
+
+        try (RouteWriter writer = new RouteWriter(router)) {
+            writer.addRoute("/users/{id}/", "user5").get();
+        }
+        Assert.assertEquals("user5", router.getValue("/users/7/").getAssetId());
+        Assert.assertSame(users, router.getValue("/users/7/").getHandlers());
+        // 新的路由没有处理函数
+        router.addRoute("/users/{id}/posts/", "posts");
+        Assert.assertNull(router.getValue("/users/7/posts/").getHandlers());
+    }
+}
@@ -0,0 +1,179 @@
+package com.gin;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class ShardedRouterTest {
+    @Test
+    public void getValueTest() {
+        ShardedRouter router = new ShardedRouter();
+        router.addRoute("/billing/{id:int}/");
+        router.addRoute("/billing/invoices/");
+        router.addRoute("/orders/{id}/items/");
+        router.addRoute("/{id}/items/");
+        router.addRoute("/{id}/");
+
+        Assert.assertEquals(new HashSet<>(Arrays.asList("billing", "orders")), router.shardKeys());
+        Assert.assertNull(ShardedRouter.firstSegment("/{id}/items/"));
+        Assert.assertEquals("{ia", ShardedRouter.firstSegment("/{ia/"));
+
+        Assert.assertEquals("api./billing/{id:int}/", router.getValue("/billing/42/").getAssetId());
+        Assert.assertEquals("api./billing/invoices/", router.getValue("/billing/invoices/").getAssetId());
+        // 分片中没有匹配到时回到公共分片，和一棵树中回溯到路径参数一样
+        Assert.assertEquals("api./{id}/items/", router.getValue("/billing/items/").getAssetId());
+        Assert.assertEquals("api./{id}/", router.getValue("/billing/").getAssetId());
+        Assert.assertEquals("api./{id}/items/", router.getValue("/unknown/items/").getAssetId());
+
+        Params params = new Params();
+        Assert.assertEquals("api./orders/{id}/items/", router.getValue("/orders/7/items/", params).getAssetId());
+        Assert.assertEquals("7", params.get("id"));
+        // 和一棵树一样，最后一段匹配到/orders/{id}/的路径参数时不会再回溯
+        Assert.assertNull(router.getValue("/orders/items/", params).getAssetId());
+        Assert.assertEquals("items", params.get("id"));
+
+        router.remove("/billing/{id:int}/");
+        router.remove("/{id}/");
+        Assert.assertNull(router.getValue("/billing/42/").getAssetId());
+        Assert.assertEquals("api./billing/invoices/", router.getValue("/billing/invoices/", new SkippedNodeStack()).getAssetId());
+    }
+
+    /**
+     * 查询时按第一段的hash查找分片，hash相同、长度不同的分片键都要区分开
+     */
+    @Test
+    public void shardTableTest() {
+        ShardedRouter router = new ShardedRouter();
+        // "Aa"和"BB"的hashCode相同
+        router.addRoute("/Aa/x/");
+        router.addRoute("/BB/y/");
+        router.addRoute("/");
+        for (int i = 0; i < 100; i++) {
+            router.addRoute("/s" + i + "/{id}/");
+        }
+
+        Assert.assertEquals(103, router.shardKeys().size());
+        Assert.assertEquals("api./Aa/x/", router.getValue("/Aa/x/").getAssetId());
+        Assert.assertEquals("api./BB/y/", router.getValue("/BB/y/").getAssetId());
+        // 和一棵树一样停留在最后访问的节点
+        Assert.assertEquals("api./Aa/x/", router.getValue("/Aa/y/").getAssetId());
+        Assert.assertEquals("api./", router.getValue("/").getAssetId());
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals("api./s" + i + "/{id}/", router.getValue("/s" + i + "/7/").getAssetId());
+        }
+        Assert.assertNull(router.getValue("/s100/7/").getAssetId());
+        Assert.assertNull(router.getValue("/s1").getAssetId());
+        Assert.assertEquals("api./", router.getValue("").getAssetId());
+    }
+
+    /**
+     * 与所有路由都在一棵树中的查询结果逐个比较，包括没有命中时停留在前缀节点的情况
+     */
+    @Test
+    public void sameAsNodeTest() {
+        String[][] routeSets = {
+                {"/a/", "/a/b/", "/c/"},
+                {"/a/", "/a/b/", "/c/", "/{id}/x/"},
+                {"/a/", "/a/b/", "/{id:int}/", "/{id:int}/b/"},
+                {"/a/", "/a/{id}/c/", "/{name}/", "/b/x/{id:int}/"},
+        };
+        String[] paths = {"/a/", "/a/b/", "/a/c/", "/a/x/", "/a/b/c/", "/c/", "/c/a/", "/a/x/c/", "/1/", "/1/b/", "/a/1/c/",
+                "/b/x/", "/b/x/1/", "/b/x/y/", "/d/", "/", "/a", ""};
+
+        for (String[] routes : routeSets) {
+            ShardedRouter router = new ShardedRouter();
+            Node root = new Node();
+            for (String route : routes) {
+                router.addRoute(route);
+                root.addRoute(route);
+            }
+
+            for (String path : paths) {
+                Assert.assertEquals(Arrays.toString(routes) + " " + path,
+                        root.getValue(path, new SkippedNodeStack()).getAssetId(), router.getValue(path).getAssetId());
+            }
+        }
+
+        ShardedRouter router = new ShardedRouter();
+        router.addRoute("/a/");
+        router.addRoute("/a/b/");
+        router.addRoute("/c/");
+        Assert.assertEquals("api./a/", router.getValue("/a/c/").getAssetId());
+    }
+
+    @Test
+    public void customKeyTest() {
+        // 按第二段分片，第二段是路径参数时放到公共分片
+        ShardedRouter router = new ShardedRouter(path -> ShardedRouter.firstSegment(path.substring(path.indexOf('/', 1))));
+        router.addRoute("/v1/users/{id}/");
+        router.addRoute("/v2/users/");
+        router.addRoute("/v1/{name}/");
+
+        Assert.assertEquals(new HashSet<>(Arrays.asList("users")), router.shardKeys());
+        Assert.assertEquals("api./v1/users/{id}/", router.getValue("/v1/users/1/").getAssetId());
+        Assert.assertEquals("api./v2/users/", router.getValue("/v2/users/").getAssetId());
+        Assert.assertEquals("api./v1/{name}/", router.getValue("/v1/users/").getAssetId());
+    }
+
+    @Test
+    public void concurrentWriteTest() throws InterruptedException {
+        ShardedRouter router = new ShardedRouter();
+        router.addRoute("/api/v1/users/{id}/");
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            Thread reader = new Thread(() -> {
+                try {
+                    while (running.get()) {
+                        Assert.assertEquals("api./api/v1/users/{id}/", router.getValue("/api/v1/users/42/").getAssetId());
+                    }
+                } catch (Throwable e) {
+                    error.set(e);
+                }
+            });
+            reader.start();
+            threads.add(reader);
+        }
+
+        List<Thread> writers = new ArrayList<>();
+        for (int w = 0; w < 4; w++) {
+            String service = "/service" + w;
+            Thread writer = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 500; i++) {
+                        router.addRoute(service + "/items" + i + "/{id}/");
+                        if (i % 2 == 0) {
+                            router.remove(service + "/items" + i + "/{id}/");
+                        }
+                    }
+                } catch (Throwable e) {
+                    error.set(e);
+                }
+            });
+            writer.start();
+            writers.add(writer);
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        running.set(false);
+        for (Thread reader : threads) {
+            reader.join();
+        }
+
+        Assert.assertNull(error.get());
+        Assert.assertEquals(5, router.shardKeys().size());
+        for (int w = 0; w < 4; w++) {
+            Assert.assertEquals("api./service" + w + "/items1/{id}/", router.getValue("/service" + w + "/items1/7/").getAssetId());
+            Assert.assertNull(router.getValue("/service" + w + "/items2/7/").getAssetId());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.gin;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+public class TreeBuilderTest {
+    @Test
+    public void sameAsAddRouteTest() {
+        String[] segments = {"a", "b", "ab", "api", "{id}", "t", "test", "~", "1"};
+        Random random = new Random(42);
+        for (int round = 0; round < 2000; round++) {
+            List<NodeValue> routes = new ArrayList<>();
+            int size = 1 + random.nextInt(12);
+            for (int i = 0; i < size; i++) {
+                StringBuilder sb = new StringBuilder("/");
+                String prev = "";
+                int depth = 1 + random.nextInt(4);
+                for (int j = 0; j < depth; j++) {
+                    String segment = segments[random.nextInt(segments.length)];
+                    if (segment.equals("{id}") && prev.equals("{id}")) {
+                        // 连续的路径参数会退回到addRoute，见TreeBuilder
+                        segment = "b";
+                    }
+                    sb.append(segment).append('/');
+                    prev = segment;
+                }
+                routes.add(new NodeValue(sb.toString(), "asset" + random.nextInt(100)));
+            }
+
+            List<NodeValue> sorted = new ArrayList<>(routes);
+            sorted.sort(Comparator.comparing(NodeValue::getFullPath));
+            Node expected = new Node();
+            for (NodeValue route : sorted) {
+                expected.addRoute(route.getFullPath(), route.getAssetId());
+            }
+
+            assertSameTree(expected, TreeBuilder.build(routes));
+        }
+    }
+
+    @Test
+    public void buildTest() {
+        Node root = TreeBuilder.build(Arrays.asList(
+                new NodeValue("/{id}/test/", "1"),
+                new NodeValue("/api/test/{id}/", "2"),
+                new NodeValue("/{id}/aaa/", "3"),
+                new NodeValue("/api/te/{id}/", "4"),
+                new NodeValue("/apiii/test/", "5"),
+                new NodeValue("/{id}/test/", "6")
+        ));
+
+        Assert.assertEquals("/", root.getPath());
+        Assert.assertEquals(NodeType.ROOT, root.getNType());
+        Assert.assertEquals("a", root.getIndices());
+        Assert.assertTrue(root.isWildChild());
+        Assert.assertEquals("6", root.lookup("/1/test/").getAssetId());
+        Assert.assertEquals("2", root.lookup("/api/test/1/").getAssetId());
+        Assert.assertEquals("4", root.lookup("/api/te/1/").getAssetId());
+
+        // 建好的树可以继续addRoute和remove
+        root.addRoute("/api/t/", "7");
+        root.remove("/apiii/test/");
+        Assert.assertEquals("7", root.lookup("/api/t/").getAssetId());
+        Assert.assertEquals("3", root.lookup("/apiii/aaa/").getAssetId());
+    }
+
+    private static void assertSameTree(Node expected, Node actual) {
+        Assert.assertEquals(expected.getPath(), actual.getPath());
+        Assert.assertEquals(expected.getNType(), actual.getNType());
+        Assert.assertEquals(expected.getAssetId(), actual.getAssetId());
+        Assert.assertEquals(expected.getParent() == null, actual.getParent() == null);
+        Assert.assertEquals(expected.getChildren().size(), actual.getChildren().size());
+        for (int i = 0; i < expected.getChildren().size(); i++) {
+            Assert.assertSame(actual, actual.getChildren().get(i).getParent());
+            assertSameTree(expected.getChildren().get(i), actual.getChildren().get(i));
+        }
+    }
+}
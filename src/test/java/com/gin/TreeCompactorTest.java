@@ -0,0 +1,94 @@
+package com.gin;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class TreeCompactorTest {
+    private static List<String> routes(Random random, int count) {
+        String[] segments = {"api", "v1", "v2", "users", "orders", "items", "{id}", "detail", "list", "测试"};
+        List<String> routes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            StringBuilder route = new StringBuilder("/");
+            int depth = 1 + random.nextInt(4);
+            String last = "";
+            for (int j = 0; j < depth; j++) {
+                String segment = segments[random.nextInt(segments.length)];
+                if (segment.equals(last) && segment.equals("{id}")) {
+                    segment = "x" + i;
+                }
+                route.append(segment).append('/');
+                last = segment;
+            }
+            routes.add(route.toString());
+        }
+        return routes;
+    }
+
+    @Test
+    public void compactTest() {
+        List<String> routes = routes(new Random(1), 2000);
+        Node root = new Node();
+        routes.forEach(root::addRoute);
+
+        Node compacted = new TreeCompactor(false).compact(root);
+        for (String route : routes) {
+            String path = route.replace("{id}", "123");
+            Assert.assertEquals(path, root.lookup(path).getAssetId(), compacted.lookup(path).getAssetId());
+        }
+
+        MemoryFootprint before = MemoryFootprint.of(root);
+        MemoryFootprint after = MemoryFootprint.of(compacted);
+        Assert.assertEquals(before.getNodes(), after.getNodes());
+        Assert.assertEquals(before.getRoutes(), after.getRoutes());
+        Assert.assertTrue(after.getBytesPerRoute() < before.getBytesPerRoute());
+        Assert.assertTrue(after.getLabelBytes() < before.getLabelBytes());
+        Assert.assertTrue(after.getChildrenBytes() < before.getChildrenBytes());
+    }
+
+    @Test
+    public void modifyAfterCompactTest() {
+        Random random = new Random(2);
+        List<String> routes = routes(random, 500);
+        Node root = new Node();
+        routes.forEach(root::addRoute);
+        Node compacted = new TreeCompactor(false).compact(root);
+
+        // 没有parent的叶子节点和共享的空列表也可以继续修改
+        List<String> added = routes(random, 200);
+        for (String route : added) {
+            root.addRoute(route);
+            compacted.addRoute(route);
+        }
+        for (int i = 0; i < 300; i++) {
+            String route = routes.get(random.nextInt(routes.size()));
+            root.remove(route);
+            compacted.remove(route);
+        }
+
+        routes.addAll(added);
+        for (String route : routes) {
+            String path = route.replace("{id}", "123");
+            Assert.assertEquals(path, root.lookup(path).getAssetId(), compacted.lookup(path).getAssetId());
+        }
+    }
+
+    @Test
+    public void concurrentRouterTest() {
+        ConcurrentRouter router = new ConcurrentRouter();
+        router.addRoute("/api/test/{id}/");
+        router.addRoute("/api/te/");
+        Node before = router.snapshot();
+
+        router.compact(new TreeCompactor());
+        Assert.assertNotSame(before, router.snapshot());
+        Assert.assertEquals("api./api/test/{id}/", router.getValue("/api/test/1/").getAssetId());
+
+        router.addRoute("/api/test/abc/");
+        Assert.assertEquals("api./api/test/abc/", router.getValue("/api/test/abc/").getAssetId());
+        Assert.assertEquals("api./api/test/{id}/", before.lookup("/api/test/abc/").getAssetId());
+    }
+}
@@ -0,0 +1,122 @@
+package com.gin;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TreeSnapshotTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static Node tree() {
+        Node root = new Node();
+        root.addRoute("/{id}/test/");
+        root.addRoute("/api/test/{id}/");
+        root.addRoute("/{id}/aaa/");
+        root.addRoute("/api/te/{id}/");
+        root.addRoute("/apiii/test/");
+        root.addRoute("/测试/test/");
+        for (int i = 0; i < 20; i++) {
+            root.addRoute("/wide/" + (char) ('a' + i) + "/");
+        }
+        return root;
+    }
+
+    @Test
+    public void readWriteTest() throws IOException {
+        Node root = tree();
+        Path file = folder.getRoot().toPath().resolve("routes.snapshot");
+        TreeSnapshot.write(root.freeze(), file, 1);
+
+        FrozenTree tree = TreeSnapshot.read(file, 1);
+        String[] paths = {"/123/test/", "/api/test/123/", "/api/te/", "/测试/test/", "/wide/c/", "/wide/z/", "/nothing/", "/"};
+        for (String path : paths) {
+            Assert.assertEquals(path, root.getValue(path, new ArrayList<>()).getAssetId(), tree.getValue(path));
+        }
+    }
+
+    @Test
+    public void rejectTest() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("routes.snapshot");
+        TreeSnapshot.write(tree().freeze(), file, 1);
+
+        // 资产版本过期
+        Assert.assertThrows(IOException.class, () -> TreeSnapshot.read(file, 2));
+
+        // 内容损坏
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.seek(raf.length() - 1);
+            int b = raf.read();
+            raf.seek(raf.length() - 1);
+            raf.write(b ^ 1);
+        }
+        Assert.assertThrows(IOException.class, () -> TreeSnapshot.read(file, 1));
+
+        // 重新建树并覆盖损坏的快照
+        AtomicInteger rebuilds = new AtomicInteger();
+        FrozenTree tree = TreeSnapshot.load(file, 1, () -> {
+            rebuilds.incrementAndGet();
+            return tree();
+        });
+        Assert.assertEquals("api./{id}/test/", tree.getValue("/123/test/"));
+        Assert.assertEquals("api./{id}/test/", TreeSnapshot.read(file, 1).getValue("/123/test/"));
+
+        TreeSnapshot.load(file, 1, () -> {
+            rebuilds.incrementAndGet();
+            return tree();
+        });
+        Assert.assertEquals(1, rebuilds.get());
+    }
+
+    private static Node largeTree() {
+        Node root = new Node();
+        for (int v = 1; v <= 4; v++) {
+            for (int i = 0; i < 250; i++) {
+                for (int j = 0; j < 50; j++) {
+                    root.addRoute("/api/v" + v + "/svc" + i + "/res" + j + "/{id}/");
+                }
+                root.addRoute("/api/v" + v + "/svc" + i + "/{name}/detail/");
+            }
+        }
+        return root;
+    }
+
+    @Test
+    public void loadFasterThanRebuildTest() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("routes.snapshot");
+        FrozenTree built = largeTree().freeze();
+        TreeSnapshot.write(built, file, 1);
+
+        // 推导出来的数组直接从快照读出，与建树时算出的一致
+        FrozenTree read = TreeSnapshot.read(file, 1);
+        Assert.assertArrayEquals(built.firstChars, read.firstChars);
+        Assert.assertArrayEquals(built.depth, read.depth);
+        Assert.assertArrayEquals(built.fallback, read.fallback);
+        Assert.assertEquals(built.height, read.height);
+        for (String path : Arrays.asList("/api/v2/svc7/res3/42/", "/api/v4/svc249/x/detail/", "/api/v1/svc3/res3/", "/api/v9/")) {
+            Assert.assertEquals(path, built.getValue(path), read.getValue(path));
+        }
+
+        // 各取多次中最快的一次，排除预热和GC的影响
+        long rebuild = Long.MAX_VALUE;
+        long load = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            largeTree().freeze();
+            rebuild = Math.min(rebuild, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            TreeSnapshot.read(file, 1);
+            load = Math.min(load, System.nanoTime() - start);
+        }
+        Assert.assertTrue(String.format("load %dns, rebuild %dns", load, rebuild), load < rebuild);
+    }
+}